@@ -0,0 +1,97 @@
+package com.example.tuto.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compare two JMH JSON result files, typically of two commits: prints the score change of every benchmark found in
+ * both, and flags a regression when the score got worse by more than the threshold (5% by default) and by more than
+ * the sum of both error margins. Exits with status 1 when there is a regression, so that it can gate a build.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.example.tuto.benchmark.BenchmarkComparison
+ *     -Dbenchmark.args="target/jmh-baseline.json target/jmh-result.json --threshold=5"
+ */
+public class BenchmarkComparison {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <candidate.json> [--threshold=<percent>]");
+            System.exit(2);
+        }
+        double threshold = 5;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].startsWith("--threshold=")) {
+                threshold = Double.parseDouble(args[i].substring("--threshold=".length()));
+            }
+        }
+
+        Map<String, Score> baseline = read(new File(args[0]));
+        Map<String, Score> candidate = read(new File(args[1]));
+
+        System.out.printf("%-70s %14s %14s %-8s %9s%n", "benchmark", "baseline", "candidate", "unit", "change");
+        int regressions = 0;
+        for (Map.Entry<String, Score> entry : candidate.entrySet()) {
+            Score before = baseline.get(entry.getKey());
+            Score after = entry.getValue();
+            if (before == null) {
+                System.out.printf("%-70s %14s %14.3f %-8s %9s%n", entry.getKey(), "-", after.score(), after.unit(), "new");
+                continue;
+            }
+            double change = (after.score() - before.score()) / before.score() * 100;
+            // Lower is better for times, higher is better for throughputs
+            double worse = after.higherIsBetter() ? -change : change;
+            boolean regression = worse > threshold
+                    && Math.abs(after.score() - before.score()) > before.error() + after.error();
+            if (regression) {
+                regressions++;
+            }
+            System.out.printf("%-70s %14.3f %14.3f %-8s %+8.1f%%%s%n", entry.getKey(), before.score(), after.score(),
+                    after.unit(), change, regression ? "  REGRESSION" : "");
+        }
+        System.out.printf("%d benchmark(s) compared, %d regression(s) over %.1f%%%n",
+                candidate.size(), regressions, threshold);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Scores of a result file, keyed by benchmark name and parameters
+     */
+    private static Map<String, Score> read(File file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.get("benchmark").asText()
+                    .replace("com.example.tuto.benchmark.", ""));
+            JsonNode params = result.get("params");
+            if (params != null) {
+                Map<String, String> sortedParams = new TreeMap<>();
+                Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> param = fields.next();
+                    sortedParams.put(param.getKey(), param.getValue().asText());
+                }
+                key.append(sortedParams);
+            }
+            JsonNode metric = result.get("primaryMetric");
+            String unit = metric.get("scoreUnit").asText();
+            double error = metric.get("scoreError").asDouble();
+            scores.put(key.toString(), new Score(
+                    metric.get("score").asDouble(),
+                    Double.isNaN(error) ? 0 : error,
+                    unit,
+                    unit.startsWith("ops/")));
+        }
+        return scores;
+    }
+
+    private record Score(double score, double error, String unit, boolean higherIsBetter) {
+    }
+}
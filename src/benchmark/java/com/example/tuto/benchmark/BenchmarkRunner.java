@@ -0,0 +1,34 @@
+package com.example.tuto.benchmark;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * JMH entry point of the benchmark profile: runs JMH with the given arguments and, unless they already choose
+ * a result format, writes the results as JSON to the file of the benchmark.result system property
+ * (target/jmh-result.json by default). Two result files are compared with BenchmarkComparison.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.args="PostServiceBenchmark"
+ *     -Dbenchmark.result=target/jmh-$(git rev-parse --short HEAD).json
+ */
+public class BenchmarkRunner {
+
+    private static final String DEFAULT_RESULT_FILE = "target/jmh-result.json";
+
+    // Options choosing the result output, or listing instead of running
+    private static final Set<String> RESULT_OPTIONS = Set.of("-rf", "-rff", "-h", "-l", "-lp", "-lprof", "-lrf");
+
+    public static void main(String[] args) throws Exception {
+        List<String> jmhArgs = new ArrayList<>(Arrays.asList(args));
+        if (jmhArgs.stream().noneMatch(RESULT_OPTIONS::contains)) {
+            String resultFile = System.getProperty("benchmark.result");
+            jmhArgs.addAll(0, List.of("-rf", "json", "-rff",
+                    resultFile == null || resultFile.isBlank() ? DEFAULT_RESULT_FILE : resultFile));
+        }
+        Main.main(jmhArgs.toArray(String[]::new));
+    }
+}
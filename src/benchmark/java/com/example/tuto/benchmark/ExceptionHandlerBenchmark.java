@@ -0,0 +1,80 @@
+package com.example.tuto.benchmark;
+
+import com.example.tuto.controller.PostController;
+import com.example.tuto.dto.PostDto;
+import com.example.tuto.exception.BlogAPIException;
+import com.example.tuto.exception.GlobalExceptionHandler;
+import com.example.tuto.exception.ResourceNotFoundException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Error responses of GlobalExceptionHandler, from the exception to the JSON bytes: the exception is created in the
+ * benchmark as the service creates it (stack trace included), handled, then its body written by Jackson.
+ * The validation error is built once, binding is done by Spring MVC before the handler.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExceptionHandlerBenchmark {
+
+    private GlobalExceptionHandler exceptionHandler;
+    private WebRequest webRequest;
+    private MethodArgumentNotValidException validationException;
+    private ObjectMapper objectMapper;
+    private ByteArrayOutputStream responseStream;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        exceptionHandler = new GlobalExceptionHandler();
+        webRequest = new ServletWebRequest(new MockHttpServletRequest("GET", "/api/posts/42"));
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        responseStream = new ByteArrayOutputStream(4 * 1024);
+
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(new PostDto(), "postDto");
+        bindingResult.addError(new FieldError("postDto", "title", "Post title should have at least 2 caracters"));
+        bindingResult.addError(new FieldError("postDto", "description", "Post description should have at least 10 caracters"));
+        bindingResult.addError(new FieldError("postDto", "content", "must not be empty"));
+        validationException = new MethodArgumentNotValidException(
+                new MethodParameter(PostController.class.getMethod("createPost", PostDto.class), 0), bindingResult);
+    }
+
+    @Benchmark
+    public int resourceNotFound() throws IOException {
+        return write(exceptionHandler.handleResourceNotFoundException(
+                new ResourceNotFoundException("Post", "id", 42), webRequest).getBody());
+    }
+
+    @Benchmark
+    public int blogApiException() throws IOException {
+        return write(exceptionHandler.handleBlogAPIException(
+                new BlogAPIException(HttpStatus.BAD_REQUEST, "Comment does not belong to post"), webRequest).getBody());
+    }
+
+    @Benchmark
+    public int validationError() throws Exception {
+        return write(exceptionHandler.handleException(validationException, webRequest).getBody());
+    }
+
+    private int write(Object body) throws IOException {
+        responseStream.reset();
+        objectMapper.writeValue(responseStream, body);
+        return responseStream.size();
+    }
+}
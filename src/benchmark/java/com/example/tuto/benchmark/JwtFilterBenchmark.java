@@ -0,0 +1,134 @@
+package com.example.tuto.benchmark;
+
+import com.example.tuto.security.JwtAuthenticationFilter;
+import com.example.tuto.security.JwtTokenProvider;
+import com.example.tuto.utils.AppConstants;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.io.IOException;
+import java.security.Key;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of JwtAuthenticationFilter on an authenticated request, user lookup excluded (in-memory user):
+ * previous token handling (key and parser rebuilt, token verified twice) against a single verification with the
+ * parser built once, and against the verified-token cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtFilterBenchmark {
+
+    private static final String SECRET = "daf66e01593f61a15b857cf433aae03a005812b31234e149036bcc8dee755dbb";
+    private static final long EXPIRATION = 604800000L;
+    private static final long CACHE_SIZE = 10000L;
+
+    private String authorization;
+    private JwtAuthenticationFilter legacyFilter;
+    private JwtAuthenticationFilter singleParseFilter;
+    private JwtAuthenticationFilter cachedFilter;
+    private final FilterChain chain = (request, response) -> {
+    };
+
+    @Setup
+    public void setUp() {
+        UserDetails user = new User("user@mail.com", "password", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        UserDetailsService userDetailsService = username -> user;
+
+        JwtTokenProvider cachedProvider = new JwtTokenProvider(SECRET, EXPIRATION, CACHE_SIZE);
+        authorization = "Bearer " + cachedProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(user.getUsername(), null, user.getAuthorities()));
+        CacheManager cacheManager = new ConcurrentMapCacheManager(AppConstants.USER_DETAILS_CACHE);
+
+        legacyFilter = new JwtAuthenticationFilter(new LegacyTokenProvider(), userDetailsService, cacheManager);
+        singleParseFilter = new JwtAuthenticationFilter(new UncachedTokenProvider(), userDetailsService, cacheManager);
+        cachedFilter = new JwtAuthenticationFilter(cachedProvider, userDetailsService, cacheManager);
+    }
+
+    @Benchmark
+    public Object legacy() throws ServletException, IOException {
+        return filter(legacyFilter);
+    }
+
+    @Benchmark
+    public Object singleParse() throws ServletException, IOException {
+        return filter(singleParseFilter);
+    }
+
+    @Benchmark
+    public Object cached() throws ServletException, IOException {
+        return filter(cachedFilter);
+    }
+
+    private Object filter(JwtAuthenticationFilter filter) throws ServletException, IOException {
+        // A new request each time, OncePerRequestFilter skips a request it has already seen
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/posts");
+        request.addHeader("Authorization", authorization);
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    /**
+     * Previous implementation: validateToken then getUsername, each one decoding the key and building a parser
+     */
+    private static class LegacyTokenProvider extends JwtTokenProvider {
+
+        LegacyTokenProvider() {
+            super(SECRET, EXPIRATION, CACHE_SIZE);
+        }
+
+        @Override
+        public Claims parseClaims(String token) {
+            Jwts.parserBuilder().setSigningKey(key()).build().parse(token);
+            return Jwts.parserBuilder().setSigningKey(key()).build().parseClaimsJws(token).getBody();
+        }
+
+        private static Key key() {
+            return Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        }
+    }
+
+    /**
+     * Verification of every request, with the parser built once
+     */
+    private static class UncachedTokenProvider extends JwtTokenProvider {
+
+        private final JwtParser parser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .build();
+
+        UncachedTokenProvider() {
+            super(SECRET, EXPIRATION, CACHE_SIZE);
+        }
+
+        @Override
+        public Claims parseClaims(String token) {
+            return parser.parseClaimsJws(token).getBody();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.tuto.benchmark;
+
+import com.example.tuto.security.JwtTokenProvider;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtTokenProvider on its own: token generation at login, and validation of a token already seen (verified-token
+ * cache hit) or never seen (signature checked, as on the first request of a token).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtTokenProviderBenchmark {
+
+    private static final String SECRET = "daf66e01593f61a15b857cf433aae03a005812b31234e149036bcc8dee755dbb";
+    private static final long EXPIRATION = 604800000L;
+    private static final long CACHE_SIZE = 10000L;
+
+    private Authentication authentication;
+    private String token;
+    private JwtTokenProvider tokenProvider;
+    private JwtTokenProvider uncachedTokenProvider;
+
+    @Setup
+    public void setUp() {
+        authentication = new UsernamePasswordAuthenticationToken("user@mail.com", null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN")));
+        tokenProvider = new JwtTokenProvider(SECRET, EXPIRATION, CACHE_SIZE);
+        uncachedTokenProvider = new UncachedTokenProvider();
+        token = tokenProvider.generateToken(authentication);
+        tokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return tokenProvider.generateToken(authentication);
+    }
+
+    @Benchmark
+    public boolean validateCachedToken() {
+        return tokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public boolean validateNewToken() {
+        return uncachedTokenProvider.validateToken(token);
+    }
+
+    /**
+     * Signature verified on every call, as for a token the cache has not seen yet
+     */
+    private static class UncachedTokenProvider extends JwtTokenProvider {
+
+        private final JwtParser parser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .build();
+
+        UncachedTokenProvider() {
+            super(SECRET, EXPIRATION, CACHE_SIZE);
+        }
+
+        @Override
+        public Claims parseClaims(String token) {
+            return parser.parseClaimsJws(token).getBody();
+        }
+    }
+}
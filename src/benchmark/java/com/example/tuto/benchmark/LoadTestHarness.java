@@ -0,0 +1,428 @@
+package com.example.tuto.benchmark;
+
+import com.example.tuto.TutoApplication;
+import com.example.tuto.entity.Comment;
+import com.example.tuto.entity.Post;
+import com.example.tuto.entity.Role;
+import com.example.tuto.entity.User;
+import com.example.tuto.repository.CommentRepository;
+import com.example.tuto.repository.PostRepository;
+import com.example.tuto.repository.RoleRepository;
+import com.example.tuto.repository.UserRepository;
+import com.example.tuto.security.JwtTokenProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end load test over HTTP: boots the application on the test configuration (in-memory H2, no MySQL server
+ * needed), seeds posts, comments and users, then keeps a fixed number of clients sending a mixed workload (login, post listing, post by id, comment listing,
+ * comment creation) at each concurrency level. Prints the throughput and the latency percentiles of every endpoint.
+ * With --load.threads, the whole run is repeated on each request thread mode, in a new application.
+ *
+ * Options, all optional (defaults in brackets):
+ * --load.concurrency    concurrency levels, run one after the other [10,50,200]
+ * --load.seconds        measured duration of each level [10]
+ * --load.warmup-seconds warm up at the first level, not reported [5]
+ * --load.posts          seeded posts [100]
+ * --load.comments       seeded comments per post [20]
+ * --load.users          seeded users, all with the password "password" [50]
+ * --load.mix            relative weight of each operation [login:5,list-posts:20,get-post:40,list-comments:20,create-comment:15]
+ * --load.threads        request thread modes compared, platform and/or virtual [the application's app.threads.virtual.enabled]
+ * --load.report         JSON file receiving the results, none by default
+ *
+ * Every argument is also passed to the application, e.g. --app.threads.virtual.enabled=true, or the
+ * --spring.datasource.* and --spring.jpa.properties.hibernate.dialect properties of a real MySQL server.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.example.tuto.benchmark.LoadTestHarness
+ *     -Dbenchmark.args="--load.concurrency=10,50,200 --load.seconds=10 --load.report=target/load-report.json"
+ *
+ * Platform threads against virtual threads, on the comment listing alone (one query per request):
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.example.tuto.benchmark.LoadTestHarness
+ *     -Dbenchmark.args="--load.threads=platform,virtual --load.mix=list-comments:1 --load.posts=1
+ *     --load.comments=1000 --load.concurrency=50,500,2000"
+ */
+public class LoadTestHarness {
+
+    private static final String PASSWORD = "password";
+    private static final int PAGE_SIZE = 10;
+    private static final String VIRTUAL_THREADS_PROPERTY = "app.threads.virtual.enabled";
+
+    private enum Operation {
+        LOGIN("login", "POST /api/auth/login"),
+        LIST_POSTS("list-posts", "GET /api/posts"),
+        GET_POST("get-post", "GET /api/posts/{id}"),
+        LIST_COMMENTS("list-comments", "GET /api/posts/{postId}/comments"),
+        CREATE_COMMENT("create-comment", "POST /api/posts/{postId}/comments");
+
+        private final String key;
+        private final String endpoint;
+
+        Operation(String key, String endpoint) {
+            this.key = key;
+            this.endpoint = endpoint;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        SimpleCommandLinePropertySource options = new SimpleCommandLinePropertySource(args);
+        int[] concurrencies = Arrays.stream(option(options, "load.concurrency", "10,50,200").split(","))
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        long seconds = Long.parseLong(option(options, "load.seconds", "10"));
+        long warmupSeconds = Long.parseLong(option(options, "load.warmup-seconds", "5"));
+        int postCount = Integer.parseInt(option(options, "load.posts", "100"));
+        int commentsPerPost = Integer.parseInt(option(options, "load.comments", "20"));
+        int userCount = Integer.parseInt(option(options, "load.users", "50"));
+        Operation[] mix = mix(option(options, "load.mix",
+                "login:5,list-posts:20,get-post:40,list-comments:20,create-comment:15"));
+        String reportFile = options.getProperty("load.report");
+        // null runs once, on the thread mode the application is configured with
+        List<Boolean> threadModes = options.containsProperty("load.threads")
+                ? threadModes(options.getProperty("load.threads"))
+                : Collections.singletonList(null);
+
+        List<Row> report = new ArrayList<>();
+        for (Boolean virtualThreads : threadModes) {
+            try (ConfigurableApplicationContext context = start(args, virtualThreads)) {
+                String threads = context.getEnvironment().getProperty(VIRTUAL_THREADS_PROPERTY, Boolean.class, false)
+                        ? "virtual" : "platform";
+                long start = System.nanoTime();
+                Dataset dataset = seed(context, postCount, commentsPerPost, userCount);
+                System.out.printf("%nSeeded %d posts, %d comments and %d users in %d ms, %s threads%n", postCount,
+                        (long) postCount * commentsPerPost, userCount, (System.nanoTime() - start) / 1_000_000, threads);
+
+                int port = Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port"));
+                Workload workload = new Workload("http://localhost:" + port, dataset, mix);
+
+                // Warm up the JIT, the caches, the connection pool and the client connections
+                workload.run(concurrencies[0], warmupSeconds);
+
+                for (int concurrency : concurrencies) {
+                    Map<Operation, Latencies> results = workload.run(concurrency, seconds);
+                    report.addAll(print(threads, concurrency, seconds, results));
+                }
+            }
+        }
+        if (reportFile != null) {
+            new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(new File(reportFile), report);
+            System.out.println("Report written to " + reportFile);
+        }
+    }
+
+    private static String option(SimpleCommandLinePropertySource options, String name, String defaultValue) {
+        String value = options.getProperty(name);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * Operations drawn by the clients, each one repeated by its weight
+     */
+    private static Operation[] mix(String weights) {
+        List<Operation> operations = new ArrayList<>();
+        for (String weight : weights.split(",")) {
+            String[] keyAndWeight = weight.split(":");
+            Operation operation = Arrays.stream(Operation.values())
+                    .filter(candidate -> candidate.key.equals(keyAndWeight[0].trim()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown operation in load.mix: " + keyAndWeight[0]));
+            for (int i = 0; i < Integer.parseInt(keyAndWeight[1].trim()); i++) {
+                operations.add(operation);
+            }
+        }
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("load.mix has no operation");
+        }
+        return operations.toArray(Operation[]::new);
+    }
+
+    /**
+     * @return true for virtual threads, false for platform threads, in the given order
+     */
+    private static List<Boolean> threadModes(String threads) {
+        return Arrays.stream(threads.split(","))
+                .map(String::trim)
+                .map(mode -> switch (mode) {
+                    case "platform" -> false;
+                    case "virtual" -> true;
+                    default -> throw new IllegalArgumentException("Unknown thread mode in load.threads: " + mode);
+                })
+                .toList();
+    }
+
+    /**
+     * @param virtualThreads Request thread mode, null to keep the one of the application configuration
+     */
+    private static ConfigurableApplicationContext start(String[] args, Boolean virtualThreads) {
+        // Devtools is on the classpath and reads this before the application properties
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        String[] applicationArgs = args;
+        if (virtualThreads != null) {
+            // An argument, so that it wins over the defaults below and replaces the one given on the command line
+            applicationArgs = Stream.concat(
+                    Arrays.stream(args).filter(arg -> !arg.startsWith("--" + VIRTUAL_THREADS_PROPERTY + "=")),
+                    Stream.of("--" + VIRTUAL_THREADS_PROPERTY + "=" + virtualThreads))
+                    .toArray(String[]::new);
+        }
+
+        return new SpringApplicationBuilder(TutoApplication.class)
+                .bannerMode(Banner.Mode.OFF)
+                .properties(
+                        "server.port=0",
+                        "spring.h2.console.enabled=false",
+                        "logging.level.root=warn")
+                .run(applicationArgs);
+    }
+
+    private static Dataset seed(ConfigurableApplicationContext context, int postCount, int commentsPerPost, int userCount) {
+        RoleRepository roleRepository = context.getBean(RoleRepository.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        PostRepository postRepository = context.getBean(PostRepository.class);
+        CommentRepository commentRepository = context.getBean(CommentRepository.class);
+        JwtTokenProvider tokenProvider = context.getBean(JwtTokenProvider.class);
+        PasswordEncoder passwordEncoder = context.getBean(PasswordEncoder.class);
+
+        List<String> emails = new ArrayList<>(userCount);
+        // Saved in one transaction, so that the users reference the managed role
+        context.getBean(TransactionTemplate.class).executeWithoutResult(status -> {
+            Role role = roleRepository.findByName("ROLE_USER").orElseGet(() -> {
+                Role userRole = new Role();
+                userRole.setName("ROLE_USER");
+                return roleRepository.save(userRole);
+            });
+            List<User> users = new ArrayList<>(userCount);
+            for (int i = 0; i < userCount; i++) {
+                User user = new User();
+                user.setName("Load user " + i);
+                user.setUsername("loaduser" + i);
+                user.setEmail("loaduser" + i + "@mail.com");
+                // Unique column, each hash has its own salt
+                user.setPassword(passwordEncoder.encode(PASSWORD));
+                user.setRoles(Set.of(role));
+                users.add(user);
+                emails.add(user.getEmail());
+            }
+            userRepository.saveAll(users);
+        });
+
+        List<Post> posts = new ArrayList<>(postCount);
+        for (int i = 0; i < postCount; i++) {
+            Post post = new Post();
+            post.setTitle("Load test post " + i);
+            post.setDescription("Post seeded by the load test");
+            post.setContent("Content of the load test post number " + i);
+            post.setCommentCount(commentsPerPost);
+            posts.add(post);
+        }
+        posts = postRepository.saveAll(posts);
+
+        List<Comment> comments = new ArrayList<>(postCount * commentsPerPost);
+        for (Post post : posts) {
+            for (int i = 0; i < commentsPerPost; i++) {
+                Comment comment = new Comment();
+                comment.setName("Reader " + i);
+                comment.setEmail("reader" + i + "@mail.com");
+                comment.setBody("Comment number " + i + " of the load test");
+                comment.setPost(post);
+                comments.add(comment);
+            }
+        }
+        commentRepository.saveAll(comments);
+
+        // Comment creation needs a token, generated here rather than by a login per client
+        List<String> tokens = emails.stream()
+                .map(email -> tokenProvider.generateToken(new UsernamePasswordAuthenticationToken(
+                        email, null, List.of(new SimpleGrantedAuthority("ROLE_USER")))))
+                .toList();
+
+        return new Dataset(posts.stream().map(Post::getId).toList(), commentsPerPost, emails, tokens);
+    }
+
+    private static List<Row> print(String threads, int concurrency, long seconds, Map<Operation, Latencies> results) {
+        Latencies all = new Latencies();
+        results.values().forEach(all::addAll);
+
+        System.out.printf("%nConcurrency %d, %d s, %s threads%n", concurrency, seconds, threads);
+        System.out.printf("%-36s %10s %12s %10s %10s %10s %10s %8s%n",
+                "endpoint", "requests", "requests/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "errors");
+        List<Row> rows = new ArrayList<>();
+        for (Map.Entry<Operation, Latencies> result : results.entrySet()) {
+            rows.add(Row.of(threads, concurrency, result.getKey().endpoint, result.getValue(), seconds));
+        }
+        rows.add(Row.of(threads, concurrency, "all", all, seconds));
+        for (Row row : rows) {
+            System.out.printf("%-36s %10d %12.1f %10.2f %10.2f %10.2f %10.2f %8d%n",
+                    row.endpoint(), row.requests(), row.throughput(), row.p50(), row.p95(), row.p99(), row.max(),
+                    row.errors());
+        }
+        return rows;
+    }
+
+    private record Dataset(List<Long> postIds, int commentsPerPost, List<String> emails, List<String> tokens) {
+    }
+
+    /**
+     * The clients: each one sends its next request as soon as the previous one is answered
+     */
+    private static class Workload {
+
+        private final String baseUri;
+        private final Dataset dataset;
+        private final Operation[] mix;
+        private final HttpClient httpClient;
+
+        Workload(String baseUri, Dataset dataset, Operation[] mix) {
+            this.baseUri = baseUri;
+            this.dataset = dataset;
+            this.mix = mix;
+            this.httpClient = HttpClient.newBuilder()
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .build();
+        }
+
+        Map<Operation, Latencies> run(int concurrency, long seconds) throws Exception {
+            long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<Map<Operation, Latencies>>> loops = new ArrayList<>(concurrency);
+                for (int i = 0; i < concurrency; i++) {
+                    loops.add(clients.submit(() -> loop(deadline)));
+                }
+
+                Map<Operation, Latencies> results = new EnumMap<>(Operation.class);
+                for (Future<Map<Operation, Latencies>> loop : loops) {
+                    loop.get().forEach((operation, latencies) ->
+                            results.computeIfAbsent(operation, key -> new Latencies()).addAll(latencies));
+                }
+                return results;
+            }
+        }
+
+        private Map<Operation, Latencies> loop(long deadline) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            Map<Operation, Latencies> latencies = new EnumMap<>(Operation.class);
+            while (System.nanoTime() < deadline) {
+                Operation operation = mix[random.nextInt(mix.length)];
+                HttpRequest request = request(operation, random);
+                Latencies operationLatencies = latencies.computeIfAbsent(operation, key -> new Latencies());
+                long start = System.nanoTime();
+                try {
+                    HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() / 100 != 2) {
+                        operationLatencies.errors++;
+                        continue;
+                    }
+                } catch (Exception e) {
+                    operationLatencies.errors++;
+                    continue;
+                }
+                operationLatencies.add(System.nanoTime() - start);
+            }
+            return latencies;
+        }
+
+        private HttpRequest request(Operation operation, ThreadLocalRandom random) {
+            long postId = dataset.postIds().get(random.nextInt(dataset.postIds().size()));
+            int user = random.nextInt(dataset.emails().size());
+            return switch (operation) {
+                case LOGIN -> post("/api/auth/login", null, """
+                        {"usernameOrEmail":"%s","password":"%s"}""".formatted(dataset.emails().get(user), PASSWORD));
+                case LIST_POSTS -> get("/api/posts?pageSize=" + PAGE_SIZE + "&pageNo="
+                        + random.nextInt(Math.max(1, dataset.postIds().size() / PAGE_SIZE)));
+                case GET_POST -> get("/api/posts/" + postId);
+                case LIST_COMMENTS -> get("/api/posts/" + postId + "/comments?pageSize=" + PAGE_SIZE + "&pageNo="
+                        + random.nextInt(Math.max(1, dataset.commentsPerPost() / PAGE_SIZE)));
+                case CREATE_COMMENT -> post("/api/posts/" + postId + "/comments", dataset.tokens().get(user), """
+                        {"name":"Load user %d","email":"%s","body":"Comment sent by the load test"}"""
+                        .formatted(user, dataset.emails().get(user)));
+            };
+        }
+
+        private HttpRequest get(String path) {
+            return HttpRequest.newBuilder(URI.create(baseUri + path)).build();
+        }
+
+        private HttpRequest post(String path, String token, String json) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUri + path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(json));
+            if (token != null) {
+                builder.header("Authorization", "Bearer " + token);
+            }
+            return builder.build();
+        }
+    }
+
+    /**
+     * Latencies of the answered requests, in nanoseconds, and count of the failed ones
+     */
+    private static class Latencies {
+
+        private long[] values = new long[1024];
+        private int count;
+        private long errors;
+
+        void add(long latency) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = latency;
+        }
+
+        void addAll(Latencies other) {
+            for (int i = 0; i < other.count; i++) {
+                add(other.values[i]);
+            }
+            errors += other.errors;
+        }
+    }
+
+    /**
+     * Results of an endpoint at a concurrency level, latencies in milliseconds
+     */
+    private record Row(String threads, int concurrency, String endpoint, long requests, long errors, double throughput,
+                       double p50, double p95, double p99, double max) {
+
+        static Row of(String threads, int concurrency, String endpoint, Latencies latencies, long seconds) {
+            long[] sorted = Arrays.copyOf(latencies.values, latencies.count);
+            Arrays.sort(sorted);
+            return new Row(threads, concurrency, endpoint, sorted.length, latencies.errors, (double) sorted.length / seconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                    percentile(sorted, 1.0));
+        }
+
+        private static double percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.tuto.benchmark;
+
+import com.example.tuto.dto.PostDto;
+import com.example.tuto.entity.Comment;
+import com.example.tuto.entity.Post;
+import com.example.tuto.mapper.CommentMapperImpl;
+import com.example.tuto.mapper.PostMapper;
+import com.example.tuto.mapper.PostMapperImpl;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Post entity to dto mapping : reflective ModelMapper (previous implementation) against the generated MapStruct mapper.
+ * Add "-prof gc" to the JMH arguments to get the allocation rate per call (gc.alloc.rate.norm).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+
+    @Param({"0", "10", "100"})
+    private int commentCount;
+
+    private Post post;
+    private ModelMapper modelMapper;
+    private PostMapper postMapper;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        postMapper = new PostMapperImpl(new CommentMapperImpl());
+
+        post = new Post();
+        post.setId(1L);
+        post.setTitle("Benchmark post");
+        post.setDescription("Post used by the mapping benchmark");
+        post.setContent("Content of the benchmark post");
+        post.setDateCreated(LocalDateTime.now());
+        post.setLastUpdated(LocalDateTime.now());
+
+        Set<Comment> comments = new HashSet<>();
+        for (long i = 0; i < commentCount; i++) {
+            Comment comment = new Comment();
+            comment.setId(i);
+            comment.setName("name" + i);
+            comment.setEmail("user" + i + "@mail.com");
+            comment.setBody("Body of the comment number " + i);
+            comment.setPost(post);
+            comments.add(comment);
+        }
+        post.setComments(comments);
+    }
+
+    @Benchmark
+    public PostDto modelMapper() {
+        return modelMapper.map(post, PostDto.class);
+    }
+
+    @Benchmark
+    public PostDto mapStruct() {
+        return postMapper.mapToDTO(post);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.tuto.benchmark;
+
+import com.example.tuto.cache.PostPayload;
+import com.example.tuto.cache.PostPayloadCache;
+import com.example.tuto.dto.CommentDto;
+import com.example.tuto.dto.PostDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing GET /api/posts/{id} to the response stream : Jackson serialization of the dto (previous path)
+ * against the copy of the cached JSON bytes.
+ * Add "-prof gc" to the JMH arguments to get the allocation per request (gc.alloc.rate.norm).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PostPayloadBenchmark {
+
+    @Param({"0", "10", "100"})
+    private int commentCount;
+
+    private PostDto postDto;
+    private PostPayload payload;
+    private ObjectMapper objectMapper;
+    private ByteArrayOutputStream responseStream;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        responseStream = new ByteArrayOutputStream(64 * 1024);
+
+        postDto = new PostDto();
+        postDto.setId(1L);
+        postDto.setTitle("Benchmark post");
+        postDto.setDescription("Post used by the payload benchmark");
+        postDto.setContent("Content of the benchmark post");
+        Set<CommentDto> comments = new HashSet<>();
+        for (long i = 0; i < commentCount; i++) {
+            CommentDto comment = new CommentDto();
+            comment.setId(i);
+            comment.setName("name" + i);
+            comment.setEmail("user" + i + "@mail.com");
+            comment.setBody("Body of the comment number " + i);
+            comments.add(comment);
+        }
+        postDto.setComments(comments);
+
+        PostPayloadCache postPayloadCache = new PostPayloadCache(
+                new ConcurrentMapCacheManager("postPayloads"), objectMapper);
+        payload = postPayloadCache.get(1L, () -> postDto);
+    }
+
+    @Benchmark
+    public int jacksonSerialization() throws IOException {
+        responseStream.reset();
+        objectMapper.writeValue(responseStream, postDto);
+        return responseStream.size();
+    }
+
+    @Benchmark
+    public int cachedBytes() {
+        responseStream.reset();
+        responseStream.writeBytes(payload.json());
+        return responseStream.size();
+    }
+}
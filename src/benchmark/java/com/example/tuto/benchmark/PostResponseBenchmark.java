@@ -0,0 +1,75 @@
+package com.example.tuto.benchmark;
+
+import com.example.tuto.dto.CommentDto;
+import com.example.tuto.dto.PostDto;
+import com.example.tuto.dto.PostResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the GET /api/posts body, by page size and number of comments per post,
+ * with the ObjectMapper configuration Spring MVC uses.
+ * Add "-prof gc" to the JMH arguments to get the allocation per response (gc.alloc.rate.norm).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PostResponseBenchmark {
+
+    @Param({"10", "50"})
+    private int pageSize;
+
+    @Param({"0", "10"})
+    private int commentCount;
+
+    private PostResponse postResponse;
+    private ObjectMapper objectMapper;
+    private ByteArrayOutputStream responseStream;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        responseStream = new ByteArrayOutputStream(256 * 1024);
+
+        List<PostDto> content = new ArrayList<>(pageSize);
+        for (long id = 1; id <= pageSize; id++) {
+            PostDto postDto = new PostDto();
+            postDto.setId(id);
+            postDto.setTitle("Benchmark post " + id);
+            postDto.setDescription("Post used by the response benchmark");
+            postDto.setContent("Content of the benchmark post " + id);
+            postDto.setCommentCount(commentCount);
+            Set<CommentDto> comments = new HashSet<>();
+            for (long i = 0; i < commentCount; i++) {
+                CommentDto comment = new CommentDto();
+                comment.setId(id * 1000 + i);
+                comment.setName("name" + i);
+                comment.setEmail("user" + i + "@mail.com");
+                comment.setBody("Body of the comment number " + i);
+                comments.add(comment);
+            }
+            postDto.setComments(comments);
+            content.add(postDto);
+        }
+        postResponse = new PostResponse(content, 0, pageSize, 1000, 1000 / pageSize, false);
+    }
+
+    @Benchmark
+    public int serialize() throws IOException {
+        responseStream.reset();
+        objectMapper.writeValue(responseStream, postResponse);
+        return responseStream.size();
+    }
+}
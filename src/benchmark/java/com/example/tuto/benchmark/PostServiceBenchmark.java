@@ -0,0 +1,110 @@
+package com.example.tuto.benchmark;
+
+import com.example.tuto.entity.Comment;
+import com.example.tuto.entity.Post;
+import com.example.tuto.mapper.CommentMapperImpl;
+import com.example.tuto.mapper.PostMapperImpl;
+import com.example.tuto.repository.CommentRepository;
+import com.example.tuto.repository.PostRepository;
+import com.example.tuto.service.impl.PostServiceImpl;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PostServiceImpl read path without the database: repositories are stubs answering loaded entities,
+ * so the score is the service work (entity to dto mapping, page assembly).
+ * The service is not a Spring bean here, the posts cache and the layer metrics are not applied.
+ * Add "-prof gc" to the JMH arguments to get the allocation per call (gc.alloc.rate.norm).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PostServiceBenchmark {
+
+    private static final int PAGE_SIZE = 10;
+
+    @Param({"0", "10", "100"})
+    private int commentCount;
+
+    private PostServiceImpl postService;
+
+    @Setup
+    public void setUp() {
+        List<Post> posts = new ArrayList<>(PAGE_SIZE);
+        List<Long> postIds = new ArrayList<>(PAGE_SIZE);
+        for (long id = 1; id <= PAGE_SIZE; id++) {
+            posts.add(post(id));
+            postIds.add(id);
+        }
+
+        PostRepository postRepository = Stubs.stub(PostRepository.class, Map.of(
+                "findWithCommentsById", Optional.of(posts.get(0)),
+                "findAllIds", new PageImpl<>(postIds, PageRequest.of(0, PAGE_SIZE), 100),
+                "findAllWithCommentsByIdIn", posts));
+
+        // Neither the entity manager, transactions nor validation are used by the read path
+        postService = new PostServiceImpl(
+                postRepository,
+                Stubs.stub(CommentRepository.class, Map.of()),
+                new PostMapperImpl(new CommentMapperImpl()),
+                new CommentMapperImpl(),
+                Stubs.stub(EntityManager.class, Map.of()),
+                new TransactionTemplate(),
+                Stubs.stub(Validator.class, Map.of()));
+    }
+
+    /**
+     * GET /api/posts/{id} on a cache miss: one post and its comments mapped to a dto
+     */
+    @Benchmark
+    public Object getPostById() {
+        return postService.getPostById(1L);
+    }
+
+    /**
+     * GET /api/posts: a page of posts, each one with its comments, mapped and wrapped in a PostResponse
+     */
+    @Benchmark
+    public Object getAllPosts() {
+        return postService.getAllPosts(0, PAGE_SIZE, "id", "asc");
+    }
+
+    private Post post(long id) {
+        Post post = new Post();
+        post.setId(id);
+        post.setTitle("Benchmark post " + id);
+        post.setDescription("Post used by the service benchmark");
+        post.setContent("Content of the benchmark post " + id);
+        post.setDateCreated(LocalDateTime.now());
+        post.setLastUpdated(LocalDateTime.now());
+
+        Set<Comment> comments = new HashSet<>();
+        for (long i = 0; i < commentCount; i++) {
+            Comment comment = new Comment();
+            comment.setId(id * 1000 + i);
+            comment.setName("name" + i);
+            comment.setEmail("user" + i + "@mail.com");
+            comment.setBody("Body of the comment number " + i);
+            comment.setPost(post);
+            comments.add(comment);
+        }
+        post.setComments(comments);
+        return post;
+    }
+}
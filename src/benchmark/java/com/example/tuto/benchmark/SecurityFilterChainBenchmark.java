@@ -0,0 +1,84 @@
+package com.example.tuto.benchmark;
+
+import com.example.tuto.TutoApplication;
+import com.example.tuto.security.JwtTokenProvider;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of the Spring Security filter chain on GET /api/posts/{id}, a public route, controller excluded:
+ * without token, with a valid token and with an invalid (tampered) one.
+ * The chain is the application's own springSecurityFilterChain, on the test configuration (in-memory H2).
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.args="SecurityFilterChainBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SecurityFilterChainBenchmark {
+
+    @Param({"none", "valid", "invalid"})
+    public String token;
+
+    private ConfigurableApplicationContext context;
+    private Filter securityFilterChain;
+    private String authorization;
+    private final FilterChain controller = (request, response) -> {
+    };
+
+    @Setup
+    public void setUp() {
+        // Devtools is on the classpath and reads this before the application properties
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        context = new SpringApplicationBuilder(TutoApplication.class)
+                .bannerMode(Banner.Mode.OFF)
+                .properties(
+                        "server.port=0",
+                        "spring.h2.console.enabled=false",
+                        "logging.level.root=warn")
+                .run();
+        securityFilterChain = context.getBean("springSecurityFilterChain", Filter.class);
+
+        String validToken = context.getBean(JwtTokenProvider.class).generateToken(new UsernamePasswordAuthenticationToken(
+                "user@mail.com", null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+        authorization = switch (token) {
+            case "valid" -> "Bearer " + validToken;
+            // Same header and payload, signature of another token
+            case "invalid" -> "Bearer " + validToken.substring(0, validToken.lastIndexOf('.') + 1) + "c2lnbmF0dXJl";
+            default -> null;
+        };
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object getPost() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/posts/1");
+        if (authorization != null) {
+            request.addHeader("Authorization", authorization);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        securityFilterChain.doFilter(request, response, controller);
+        return response;
+    }
+}
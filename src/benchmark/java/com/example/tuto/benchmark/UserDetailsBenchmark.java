@@ -0,0 +1,58 @@
+package com.example.tuto.benchmark;
+
+import com.example.tuto.entity.Role;
+import com.example.tuto.entity.User;
+import com.example.tuto.repository.UserRepository;
+import com.example.tuto.security.CustomUserDetailsService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CustomUserDetailsService.loadUserByUsername with the user already loaded (stubbed repository): the cost of building
+ * the granted authorities and the UserDetails, by number of roles.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserDetailsBenchmark {
+
+    @Param({"1", "2", "10"})
+    private int roleCount;
+
+    private CustomUserDetailsService userDetailsService;
+
+    @Setup
+    public void setUp() {
+        Set<Role> roles = new HashSet<>();
+        for (long i = 0; i < roleCount; i++) {
+            Role role = new Role();
+            role.setId(i);
+            role.setName("ROLE_" + i);
+            roles.add(role);
+        }
+
+        User user = new User();
+        user.setId(1L);
+        user.setName("User");
+        user.setUsername("user");
+        user.setEmail("user@mail.com");
+        user.setPassword("$2a$10$2yxvYf3YCjQf7ZgMFiP1Ru3pHyMVxH2J6jXnAZgj.ahm4FjM0lYDi");
+        user.setRoles(roles);
+
+        userDetailsService = new CustomUserDetailsService(
+                Stubs.stub(UserRepository.class, Map.of("findByUsernameOrEmail", Optional.of(user))));
+    }
+
+    @Benchmark
+    public Object loadUserByUsername() {
+        return userDetailsService.loadUserByUsername("user@mail.com");
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.tuto.cache;
+
+/**
+ * Post dto already encoded as JSON, with its gzip version when worth it
+ * @param json JSON bytes
+ * @param gzip Gzipped JSON bytes, null for small payloads
+ */
+public record PostPayload(byte[] json, byte[] gzip) {
+}
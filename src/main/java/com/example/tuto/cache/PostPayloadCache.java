@@ -0,0 +1,78 @@
+package com.example.tuto.cache;
+
+import com.example.tuto.dto.PostDto;
+import com.example.tuto.utils.AppConstants;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache of the encoded JSON of posts, so a hot post is serialized once and then copied as is to the response.
+ * Entries are evicted with the posts cache, see the @CacheEvict of PostServiceImpl and CommentServiceImpl.
+ */
+@Component
+public class PostPayloadCache {
+
+    // Below this size gzip saves less than it costs
+    private static final int GZIP_MIN_SIZE = 1024;
+
+    private final Cache cache;
+    private final ObjectMapper objectMapper;
+
+    public PostPayloadCache(CacheManager cacheManager, ObjectMapper objectMapper) {
+        this.cache = cacheManager.getCache(AppConstants.POST_PAYLOADS_CACHE);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Get the encoded post, serializing it on a cache miss.
+     * Loaded atomically: an eviction of the post waits for a load in progress then removes its payload, the load
+     * cannot put back a payload read before the eviction.
+     * @param id Post id
+     * @param loader Loads the post dto on a cache miss
+     * @return Encoded post
+     */
+    public PostPayload get(long id, Supplier<PostDto> loader) {
+        try {
+            return cache.get(id, () -> encode(loader.get()));
+        } catch (Cache.ValueRetrievalException ex) {
+            // Errors of the loader (post not found...) are thrown as they are
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Serialize a post dto to JSON, and to gzipped JSON if large enough
+     * @param postDto Post dto
+     * @return Encoded post
+     */
+    public PostPayload encode(PostDto postDto) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(postDto);
+            return new PostPayload(json, json.length >= GZIP_MIN_SIZE ? gzip(json) : null);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.tuto.config;
+
+import com.example.tuto.utils.AppConstants;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /**
+     * Caffeine cache manager, each cache has its own size and expiration spec
+     * @return Cache manager
+     */
+    @Bean
+    public CacheManager cacheManager(@Value("${app.cache.posts.spec}") String postsSpec,
+                                     @Value("${app.cache.comments.spec}") String commentsSpec,
+                                     @Value("${app.cache.post-payloads.spec}") String postPayloadsSpec,
+                                     @Value("${app.cache.user-details.spec}") String userDetailsSpec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(AppConstants.POSTS_CACHE, Caffeine.from(postsSpec).build());
+        cacheManager.registerCustomCache(AppConstants.COMMENTS_CACHE, Caffeine.from(commentsSpec).build());
+        cacheManager.registerCustomCache(AppConstants.POST_PAYLOADS_CACHE, Caffeine.from(postPayloadsSpec).build());
+        cacheManager.registerCustomCache(AppConstants.USER_DETAILS_CACHE, Caffeine.from(userDetailsSpec).build());
+        return cacheManager;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.tuto.config;
+
+import com.example.tuto.utils.AppConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.util.Map;
+
+/**
+ * Posts and comments used to get their ids from AUTO_INCREMENT. On MySQL their sequences are emulated by
+ * tables (posts_seq, comments_seq) created empty by ddl-auto, this moves them past the existing ids.
+ * Databases with real sequences are left untouched.
+ * Runs once every singleton is created, the schema included, and before the web server starts: an insert
+ * served earlier could get a pooled id below the existing ones.
+ */
+@Component
+public class IdSequenceInitializer implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdSequenceInitializer.class);
+
+    // Sequence table -> table using it
+    private static final Map<String, String> SEQUENCE_TABLES = Map.of(
+            "posts_seq", "posts",
+            "comments_seq", "comments");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdSequenceInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        SEQUENCE_TABLES.forEach((sequenceTable, table) -> {
+            if (!tableExists(sequenceTable)) {
+                return;
+            }
+            // Pooled ids are handed out below the stored value, keep a full allocation above the max id
+            int updated = jdbcTemplate.update(
+                    "update " + sequenceTable + " set next_val = (select coalesce(max(id), 0) + ? + 1 from " + table + ")" +
+                            " where next_val <= (select coalesce(max(id), 0) + ? from " + table + ")",
+                    AppConstants.ID_ALLOCATION_SIZE, AppConstants.ID_ALLOCATION_SIZE);
+            if (updated > 0) {
+                logger.info("Moved {} past the existing ids of {}", sequenceTable, table);
+            }
+        });
+    }
+
+    private boolean tableExists(String name) {
+        Boolean exists = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            try (ResultSet tables = connection.getMetaData().getTables(connection.getCatalog(), null, name, new String[]{"TABLE"})) {
+                return tables.next();
+            }
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+}
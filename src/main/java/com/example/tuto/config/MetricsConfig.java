@@ -0,0 +1,29 @@
+package com.example.tuto.config;
+
+import com.example.tuto.metrics.HibernateRequestStatisticsListener;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Hot-path metrics: layer timers (LayerMetricsAspect) and Hibernate work per request (RequestStatisticsFilter)
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.metrics.hot-path.enabled", havingValue = "true")
+public class MetricsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateRequestStatistics() {
+        HibernateRequestStatisticsListener listener = new HibernateRequestStatisticsListener();
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, listener);
+            properties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER, (IntegratorProvider) () -> List.of(listener));
+        };
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.tuto.config;
 
+import com.example.tuto.security.BoundedPasswordEncoder;
 import com.example.tuto.security.JwtAuthenticationEntryPoint;
 import com.example.tuto.security.JwtAuthenticationFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -9,12 +12,12 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
-import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.savedrequest.NullRequestCache;
 
 @Configuration
 @EnableMethodSecurity
@@ -31,9 +34,20 @@ public class SecurityConfig {
         this.jwtAuthenticationEntryPoint = jwtAuthenticationEntryPoint;
         this.authenticationFilter = authenticationFilter;
     }
+    /**
+     * BCrypt hashes run on their own bounded pool: a burst of logins cannot take every request thread
+     * @param strength BCrypt cost factor, stored hashes of another cost are rehashed on the next login
+     * @param threads hashing threads, at most the number of CPUs left for hashing
+     * @param queueCapacity hashes waiting for a thread before requests are rejected with a 503
+     * @param meterRegistry registry of the queue size and hashing time metrics
+     * @return password encoder
+     */
     @Bean
-    public static PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public static PasswordEncoder passwordEncoder(@Value("${app.password.strength}") int strength,
+                                                  @Value("${app.password.hashing.threads}") int threads,
+                                                  @Value("${app.password.hashing.queue-capacity}") int queueCapacity,
+                                                  MeterRegistry meterRegistry) {
+        return new BoundedPasswordEncoder(strength, threads, queueCapacity, meterRegistry);
     }
 
     @Bean
@@ -51,12 +65,17 @@ public class SecurityConfig {
                                 .requestMatchers("/api/auth/**").permitAll()
                                 .requestMatchers("/swagger-ui/**").permitAll()
                                 .requestMatchers("/v3/api-docs/**").permitAll()
+                                .requestMatchers("/actuator/**").hasRole("ADMIN")
                                 .anyRequest().authenticated()
                 ).exceptionHandling(exception ->
                         exception.authenticationEntryPoint(jwtAuthenticationEntryPoint))
-                .sessionManagement(session ->
-                        session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)
-                );
+                // Stateless, without SessionManagementFilter: it would resolve the authentication of every request,
+                // which JwtAuthenticationFilter defers until an authorization decision needs it.
+                // What SessionCreationPolicy.STATELESS sets, nothing is kept in or read from the http session.
+                .sessionManagement(session -> session.disable())
+                .securityContext(context ->
+                        context.securityContextRepository(new RequestAttributeSecurityContextRepository()))
+                .requestCache(cache -> cache.requestCache(new NullRequestCache()));
 
         http.addFilterBefore(authenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
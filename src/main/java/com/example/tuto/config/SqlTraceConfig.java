@@ -0,0 +1,53 @@
+package com.example.tuto.config;
+
+import com.example.tuto.trace.SlowRequestLog;
+import com.example.tuto.trace.SqlTraceInterceptor;
+import com.example.tuto.trace.SqlTracingDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * SQL trace of the slow post and comment requests, read at GET /api/admin/slow-requests
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.sql-trace.enabled", havingValue = "true")
+public class SqlTraceConfig implements WebMvcConfigurer {
+
+    private final SlowRequestLog slowRequestLog;
+    private final Duration threshold;
+    private final int maxStatements;
+
+    public SqlTraceConfig(SlowRequestLog slowRequestLog,
+                          @Value("${app.sql-trace.threshold}") Duration threshold,
+                          @Value("${app.sql-trace.max-statements}") int maxStatements) {
+        this.slowRequestLog = slowRequestLog;
+        this.threshold = threshold;
+        this.maxStatements = maxStatements;
+    }
+
+    @Bean
+    public static BeanPostProcessor sqlTracingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof SqlTracingDataSource)) {
+                    return new SqlTracingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new SqlTraceInterceptor(slowRequestLog, threshold, maxStatements));
+    }
+}
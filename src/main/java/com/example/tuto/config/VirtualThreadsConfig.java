@@ -0,0 +1,56 @@
+package com.example.tuto.config;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import javax.sql.DataSource;
+import java.util.concurrent.Executors;
+
+/**
+ * Run each request, and the MVC async work (streamed responses), on its own virtual thread instead of a pooled
+ * platform thread. Requests blocked on JDBC or on password hashing then no longer exhaust the Tomcat workers:
+ * concurrency is bounded by the connection pool instead, see the Hikari settings in application.properties.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadsConfig.class);
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * With no thread limit in front of it, the connection pool is what queues requests
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void logPoolSizing(ApplicationReadyEvent event) {
+        DataSource dataSource = event.getApplicationContext().getBean(DataSource.class);
+        // The pool may be wrapped, see SqlTraceConfig
+        HikariDataSource hikari = DataSourceUnwrapper.unwrap(dataSource, HikariConfigMXBean.class, HikariDataSource.class);
+        if (hikari != null) {
+            logger.info("Virtual threads enabled: concurrent database work is limited by the {} pool connections, " +
+                            "requests wait at most {} ms for one",
+                    hikari.getMaximumPoolSize(), hikari.getConnectionTimeout());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.tuto.controller;
+
+import com.example.tuto.dto.SlowRequest;
+import com.example.tuto.exception.BlogAPIException;
+import com.example.tuto.service.PostService;
+import com.example.tuto.trace.SlowRequestLog;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@PreAuthorize("hasRole('ADMIN')")
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    private final PostService postService;
+    private final SlowRequestLog slowRequestLog;
+
+    public AdminController(PostService postService, SlowRequestLog slowRequestLog) {
+        this.postService = postService;
+        this.slowRequestLog = slowRequestLog;
+    }
+
+    /**
+     * Delete posts and their comments in bulk, either by ids or by age
+     * @param ids Ids of the posts to delete
+     * @param createdBefore Delete the posts created before this date
+     * @return Number of deleted posts
+     */
+    @DeleteMapping("/posts")
+    @Operation(summary = "Delete posts in bulk")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Posts successfully deleted",
+                    content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "400", description = "Neither or both of ids and createdBefore given",
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal Error", content = @Content)
+    })
+    public ResponseEntity<String> deletePosts(
+            @Parameter(description = "Ids of the posts to delete") @RequestParam(value = "ids", required = false) List<Long> ids,
+            @Parameter(description = "Delete the posts created before this date (ISO format, 2023-01-31T00:00:00)")
+            @RequestParam(value = "createdBefore", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdBefore
+    ) {
+        if ((ids == null) == (createdBefore == null)) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Either ids or createdBefore must be given");
+        }
+
+        long deleted = ids != null ? postService.deletePosts(ids) : postService.deletePostsCreatedBefore(createdBefore);
+        return ResponseEntity.ok(deleted + " posts deleted successfully.");
+    }
+
+    /**
+     * Last post and comment requests slower than app.sql-trace.threshold, with the SQL they ran
+     * @return Slow requests, most recent first, empty if app.sql-trace.enabled is false
+     */
+    @GetMapping("/slow-requests")
+    @Operation(summary = "Get the last slow requests and their SQL")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Slow requests successfully retrieved",
+                    content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "500", description = "Internal Error", content = @Content)
+    })
+    public ResponseEntity<List<SlowRequest>> getSlowRequests() {
+        return ResponseEntity.ok(slowRequestLog.recent());
+    }
+}
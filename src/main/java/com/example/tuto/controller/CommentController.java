@@ -1,7 +1,12 @@
 package com.example.tuto.controller;
 
 import com.example.tuto.dto.CommentDto;
+import com.example.tuto.dto.CommentResponse;
+import com.example.tuto.dto.CommentSliceResponse;
+import com.example.tuto.dto.PendingCommentDto;
 import com.example.tuto.service.CommentService;
+import com.example.tuto.service.CommentWriteBehindQueue;
+import com.example.tuto.utils.AppConstants;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -9,27 +14,32 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/")
 public class CommentController {
 
     private final CommentService commentService;
+    private final ObjectProvider<CommentWriteBehindQueue> writeBehindQueueProvider;
 
-    public CommentController(CommentService commentService) {
+    public CommentController(CommentService commentService, ObjectProvider<CommentWriteBehindQueue> writeBehindQueueProvider) {
         this.commentService = commentService;
+        this.writeBehindQueueProvider = writeBehindQueueProvider;
     }
 
     /**
-     * Create a comment associated to a post
+     * Create a comment associated to a post.
+     * In write-behind mode (app.comments.write-behind.enabled) the comment is only queued and saved shortly after.
      * @param postId Associated post
      * @param commentDto Comment to add to the post
-     * @return Created comment
+     * @return Created comment, or the queued comment in write-behind mode
      */
     @PostMapping("/posts/{postId}/comments")
     @Operation(summary = "Create a comment")
@@ -37,18 +47,31 @@ public class CommentController {
             @ApiResponse(responseCode = "201", description = "Comment successfully created",
                     content = { @Content(mediaType = "application/json",
                             schema = @Schema(implementation = CommentDto.class)) }),
+            @ApiResponse(responseCode = "202", description = "Comment queued (write-behind mode)",
+                    content = { @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = PendingCommentDto.class)) }),
+            @ApiResponse(responseCode = "404", description = "Post not found", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Too many pending comments (write-behind mode)", content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal Error", content = @Content)
     })
-    public ResponseEntity<CommentDto> createComment(
+    public ResponseEntity<?> createComment(
             @Parameter(description = "id of the post to which you want to add a comment") @PathVariable(value = "postId") long postId,
             @Valid @RequestBody CommentDto commentDto
     ) {
+        CommentWriteBehindQueue writeBehindQueue = writeBehindQueueProvider.getIfAvailable();
+        if (writeBehindQueue != null) {
+            return new ResponseEntity<>(writeBehindQueue.submit(postId, commentDto), HttpStatus.ACCEPTED);
+        }
         return new ResponseEntity<>(commentService.createComment(postId, commentDto), HttpStatus.CREATED);
     }
 
     /**
-     * Get all comments from a post
+     * Get a page of comments from a post
      * @param postId Post id
+     * @param pageNo Page number
+     * @param pageSize Page size (at most 100)
+     * @param sortBy Sort by property ("id" or "dateCreated")
+     * @param sortDir Sorting direction ("asc" or "desc")
      * @return Post comments
      */
     @GetMapping("/posts/{postId}/comments")
@@ -56,20 +79,55 @@ public class CommentController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Comments successfully recovered",
                     content = { @Content(mediaType = "application/json",
-                            schema = @Schema(implementation = CommentDto.class)) }),
+                            schema = @Schema(implementation = CommentResponse.class)) }),
+            @ApiResponse(responseCode = "400", description = "Invalid sort property", content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal Error", content = @Content)
+    })
+    public CommentResponse getCommentsByPostId(
+            @Parameter(description = "id of the post containing the comments") @PathVariable(name = "postId") Long postId,
+            @RequestParam(value = "pageNo", defaultValue = AppConstants.DEFAULT_PAGE_NUMBER, required = false) int pageNo,
+            @RequestParam(value = "pageSize", defaultValue = AppConstants.DEFAULT_COMMENT_PAGE_SIZE, required = false) int pageSize,
+            @RequestParam(value = "sortBy", defaultValue = AppConstants.DEFAULT_SORT_BY, required = false) String sortBy,
+            @RequestParam(value = "sortDir", defaultValue = AppConstants.DEFAULT_SORT_DIRECTION, required = false) String sortDir
+    ) {
+        return commentService.getCommentsByPostId(postId, pageNo, pageSize, sortBy, sortDir);
+    }
+
+    /**
+     * Get comments from a post with a cursor instead of a page number.
+     * Selected by the presence of the "after" parameter, pass it empty to get the first page.
+     * @param postId Post id
+     * @param after Cursor returned as "nextCursor" by the previous call
+     * @param pageSize Page size (at most 100)
+     * @param sortBy Sort by property ("id" or "dateCreated")
+     * @param sortDir Sorting direction ("asc" or "desc")
+     * @return Post comments and the cursor of the next page
+     */
+    @GetMapping(value = "/posts/{postId}/comments", params = "after")
+    @Operation(summary = "Get comments after a cursor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Comments successfully recovered",
+                    content = { @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CommentSliceResponse.class)) }),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor", content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal Error", content = @Content)
     })
-    public List<CommentDto> getCommentsByPostId(
-            @Parameter(description = "id of the post containing the comments") @PathVariable(name = "postId") Long postId
+    public CommentSliceResponse getCommentsByPostIdAfter(
+            @Parameter(description = "id of the post containing the comments") @PathVariable(name = "postId") Long postId,
+            @Parameter(description = "Cursor of the page, empty for the first one") @RequestParam(value = "after") String after,
+            @RequestParam(value = "pageSize", defaultValue = AppConstants.DEFAULT_COMMENT_PAGE_SIZE, required = false) int pageSize,
+            @RequestParam(value = "sortBy", defaultValue = AppConstants.DEFAULT_SORT_BY, required = false) String sortBy,
+            @RequestParam(value = "sortDir", defaultValue = AppConstants.DEFAULT_SORT_DIRECTION, required = false) String sortDir
     ) {
-        return commentService.getCommentsByPostId(postId);
+        return commentService.getCommentsByPostIdAfter(postId, after, pageSize, sortBy, sortDir);
     }
 
     /**
      * Get a comment from a post
      * @param postId Post id
      * @param commentId Comment id
-     * @return A comment
+     * @param webRequest Request, checked against the comment ETag
+     * @return A comment, or 304 if the client copy is up to date
      */
     @GetMapping("/posts/{postId}/comments/{commentId}")
     @Operation(summary = "Get a comment by id")
@@ -77,6 +135,8 @@ public class CommentController {
             @ApiResponse(responseCode = "200", description = "Comment found",
                     content = { @Content(mediaType = "application/json",
                             schema = @Schema(implementation = CommentDto.class)) }),
+            @ApiResponse(responseCode = "304", description = "Comment not modified since the If-None-Match ETag",
+                    content = @Content),
             @ApiResponse(responseCode = "404", description = "Comment not found",
                     content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal Error",
@@ -84,8 +144,14 @@ public class CommentController {
     })
     public ResponseEntity<CommentDto> getCommentById(
             @Parameter(description = "Id of post to be searched") @PathVariable(name = "postId") long postId,
-            @Parameter(description = "Id of comment to be searched") @PathVariable(name = "commentId") long commentId
+            @Parameter(description = "Id of comment to be searched") @PathVariable(name = "commentId") long commentId,
+            WebRequest webRequest
     ) {
+        // Answer 304 from the last update alone, before loading or serializing the comment
+        Optional<String> eTag = commentService.findCommentETag(postId, commentId);
+        if (eTag.isPresent() && webRequest.checkNotModified(eTag.get())) {
+            return null;
+        }
         return ResponseEntity.ok(commentService.getCommentById(postId, commentId));
     }
 
@@ -1,9 +1,20 @@
 package com.example.tuto.controller;
 
+import com.example.tuto.cache.PostPayload;
+import com.example.tuto.cache.PostPayloadCache;
 import com.example.tuto.dto.PostDto;
+import com.example.tuto.dto.PostImportReport;
 import com.example.tuto.dto.PostResponse;
+import com.example.tuto.dto.PostSliceResponse;
+import com.example.tuto.dto.PostSummaryResponse;
 import com.example.tuto.service.PostService;
 import com.example.tuto.utils.AppConstants;
+import com.example.tuto.utils.ETags;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -11,19 +22,32 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/posts")
 public class PostController {
 
     private final PostService postService;
+    private final PostPayloadCache postPayloadCache;
+    private final ObjectMapper objectMapper;
 
-    public PostController(PostService postService) {
+    public PostController(PostService postService, PostPayloadCache postPayloadCache, ObjectMapper objectMapper) {
         this.postService = postService;
+        this.postPayloadCache = postPayloadCache;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -69,10 +93,128 @@ public class PostController {
         return postService.getAllPosts(pageNo, pageSize, sortBy, sortDir);
     }
 
+    /**
+     * Get all posts as a lightweight list (no content, no comments, only the comment count)
+     * @param pageNo Page number
+     * @param pageSize Page size
+     * @param sortBy Sort by property
+     * @param sortDir Sorting direction ("asc" or "desc")
+     * @return List of post summaries
+     */
+    @GetMapping(params = "view=summary")
+    @Operation(summary = "Get all posts summaries")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Posts successfully recovered",
+                    content = { @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = PostSummaryResponse.class)) }),
+            @ApiResponse(responseCode = "500", description = "Internal Error", content = @Content)
+    })
+    public PostSummaryResponse getAllPostSummaries(
+            @RequestParam(value = "pageNo", defaultValue = AppConstants.DEFAULT_PAGE_NUMBER, required = false) int pageNo,
+            @RequestParam(value = "pageSize", defaultValue = AppConstants.DEFAULT_PAGE_SIZE, required = false) int pageSize,
+            @RequestParam(value = "sortBy", defaultValue = AppConstants.DEFAULT_SORT_BY, required = false) String sortBy,
+            @RequestParam(value = "sortDir", defaultValue = AppConstants.DEFAULT_SORT_DIRECTION, required = false) String sortDir
+    ){
+        return postService.getAllPostSummaries(pageNo, pageSize, sortBy, sortDir);
+    }
+
+    /**
+     * Get posts with a cursor instead of a page number.
+     * Selected by the presence of the "after" parameter, pass it empty to get the first page.
+     * @param after Cursor returned as "nextCursor" by the previous call
+     * @param pageSize Page size
+     * @param sortBy Sort by property ("id", "title" or "dateCreated")
+     * @param sortDir Sorting direction ("asc" or "desc")
+     * @return Posts and the cursor of the next page
+     */
+    @GetMapping(params = "after")
+    @Operation(summary = "Get posts after a cursor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Posts successfully recovered",
+                    content = { @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = PostSliceResponse.class)) }),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor", content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal Error", content = @Content)
+    })
+    public PostSliceResponse getAllPostsAfter(
+            @Parameter(description = "Cursor of the page, empty for the first one") @RequestParam(value = "after") String after,
+            @RequestParam(value = "pageSize", defaultValue = AppConstants.DEFAULT_PAGE_SIZE, required = false) int pageSize,
+            @RequestParam(value = "sortBy", defaultValue = AppConstants.DEFAULT_SORT_BY, required = false) String sortBy,
+            @RequestParam(value = "sortDir", defaultValue = AppConstants.DEFAULT_SORT_DIRECTION, required = false) String sortDir
+    ){
+        return postService.getPostsAfter(after, pageSize, sortBy, sortDir);
+    }
+
+    /**
+     * Export all posts (without comments) as newline delimited JSON, streamed as they are read
+     * @return One JSON post per line
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping(value = "/export", produces = AppConstants.NDJSON_MEDIA_TYPE)
+    @Operation(summary = "Export all posts")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Posts streamed",
+                    content = { @Content(mediaType = AppConstants.NDJSON_MEDIA_TYPE,
+                            schema = @Schema(implementation = PostDto.class)) }),
+            @ApiResponse(responseCode = "500", description = "Internal Error", content = @Content)
+    })
+    public ResponseEntity<StreamingResponseBody> exportPosts() {
+        // No flush per post, the generator writes to the response each time its buffer is full
+        ObjectWriter writer = objectMapper.writerFor(PostDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                // Lines are separated by hand, not by the default space between root values
+                generator.setRootValueSeparator(null);
+                postService.exportPosts(post -> {
+                    try {
+                        writer.writeValue(generator, post);
+                        generator.writeRaw('\n');
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(AppConstants.NDJSON_MEDIA_TYPE))
+                .body(body);
+    }
+
+    /**
+     * Import posts and their comments in bulk
+     * @param inputStream Newline delimited JSON posts, each one may carry its comments
+     * @param batchSize Posts inserted per JDBC batch and transaction, from 1 to AppConstants.MAX_IMPORT_BATCH_SIZE
+     * @return Imported rows and throughput, invalid posts are reported instead of inserted
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/import", consumes = AppConstants.NDJSON_MEDIA_TYPE)
+    @Operation(summary = "Import posts")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Posts successfully imported",
+                    content = { @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = PostImportReport.class)) }),
+            @ApiResponse(responseCode = "400", description = "batchSize out of range", content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal Error", content = @Content)
+    })
+    public ResponseEntity<PostImportReport> importPosts(
+            InputStream inputStream,
+            @RequestParam(value = "batchSize", defaultValue = AppConstants.DEFAULT_IMPORT_BATCH_SIZE, required = false) int batchSize
+    ) throws IOException {
+        // Posts are parsed one at a time while the service consumes them
+        try (MappingIterator<PostDto> posts = objectMapper.readerFor(PostDto.class).readValues(inputStream)) {
+            return new ResponseEntity<>(postService.importPosts(posts, batchSize), HttpStatus.CREATED);
+        }
+    }
+
     /**
      * Get a post by id
      * @param id Post id
-     * @return Found post
+     * @param acceptEncoding Accept-Encoding header, the gzipped payload is sent if it contains "gzip"
+     * @param webRequest Request, checked against the post ETag
+     * @return Found post, or 304 if the client copy is up to date
      */
     @GetMapping("/{id}")
     @Operation(summary = "Get a post by id")
@@ -80,13 +222,32 @@ public class PostController {
             @ApiResponse(responseCode = "200", description = "Post found",
                     content = { @Content(mediaType = "application/json",
                             schema = @Schema(implementation = PostDto.class)) }),
+            @ApiResponse(responseCode = "304", description = "Post not modified since the If-None-Match ETag",
+                    content = @Content),
             @ApiResponse(responseCode = "404", description = "Post not found",
                     content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal Error",
                     content = @Content)
     })
-    public ResponseEntity<PostDto> getPostById(@Parameter(description = "Id of post to be searched") @PathVariable(name = "id") long id){
-        return ResponseEntity.ok(postService.getPostById(id));
+    public ResponseEntity<byte[]> getPostById(@Parameter(description = "Id of post to be searched") @PathVariable(name = "id") long id,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                              WebRequest webRequest){
+        // Answer 304 from the version query alone, before loading or serializing the post.
+        // Weak, the gzip and identity bodies share it
+        Optional<String> eTag = postService.findPostETag(id).map(ETags::weak);
+        if (eTag.isPresent() && webRequest.checkNotModified(eTag.get())) {
+            return null;
+        }
+
+        // Write the cached JSON bytes as is, Jackson only runs on a cache miss
+        PostPayload payload = postPayloadCache.get(id, () -> postService.getPostById(id));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (payload.gzip() != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(payload.gzip());
+        }
+        return response.body(payload.json());
     }
 
     /**
@@ -0,0 +1,17 @@
+package com.example.tuto.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CommentSliceResponse {
+    private List<CommentDto> content;
+    private int pageSize;
+    private String nextCursor;
+    private boolean last;
+}
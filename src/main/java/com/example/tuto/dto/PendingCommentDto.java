@@ -0,0 +1,17 @@
+package com.example.tuto.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Comment accepted by the write-behind queue, not yet saved (and without a database id)
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PendingCommentDto {
+    private String provisionalId;
+    private long postId;
+    private CommentDto comment;
+}
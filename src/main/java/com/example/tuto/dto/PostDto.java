@@ -18,5 +18,6 @@ public class PostDto {
     private String description;
     @NotEmpty
     private String content;
+    private long commentCount;
     private Set<CommentDto> comments;
 }
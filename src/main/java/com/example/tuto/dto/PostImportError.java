@@ -0,0 +1,17 @@
+package com.example.tuto.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PostImportError {
+    // Position of the post in the imported stream, starting at 1
+    private long line;
+    // Validation message by field, comment fields prefixed with "comments."
+    private Map<String, String> errors;
+}
@@ -0,0 +1,21 @@
+package com.example.tuto.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PostImportReport {
+    private long posts;
+    private long comments;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+    // Invalid posts, not imported
+    private long rejected;
+    // First validation errors, at most AppConstants.MAX_IMPORT_ERRORS
+    private List<PostImportError> errors;
+}
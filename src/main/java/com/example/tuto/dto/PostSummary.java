@@ -0,0 +1,15 @@
+package com.example.tuto.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Post list item without content nor comments, read directly as a JPQL projection
+ */
+public interface PostSummary {
+    Long getId();
+    String getTitle();
+    String getDescription();
+    LocalDateTime getDateCreated();
+    LocalDateTime getLastUpdated();
+    long getCommentCount();
+}
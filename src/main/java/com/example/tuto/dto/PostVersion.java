@@ -0,0 +1,12 @@
+package com.example.tuto.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * What a post dto is built from, enough to tell if it changed without loading it
+ */
+public interface PostVersion {
+    LocalDateTime getLastUpdated();
+    long getCommentCount();
+    LocalDateTime getCommentsLastUpdated();
+}
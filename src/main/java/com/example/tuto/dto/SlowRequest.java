@@ -0,0 +1,23 @@
+package com.example.tuto.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SlowRequest {
+    private LocalDateTime startedAt;
+    private String endpoint;
+    private String uri;
+    private int status;
+    private double durationMillis;
+    private double sqlDurationMillis;
+    // Statements run, including those beyond app.sql-trace.max-statements which are not listed
+    private int statementCount;
+    private List<SqlStatementTrace> statements;
+}
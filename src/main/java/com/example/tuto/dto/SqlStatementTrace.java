@@ -0,0 +1,17 @@
+package com.example.tuto.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SqlStatementTrace {
+    private String sql;
+    // Parameters bound, all rows of a batch included
+    private int binds;
+    private double durationMillis;
+    // Rows read or updated, -1 if unknown (failed statement, execute() without update count)
+    private long rows;
+}
@@ -0,0 +1,9 @@
+package com.example.tuto.dto;
+
+/**
+ * Unique names of a user, what registration checks
+ */
+public interface UserIdentity {
+    String getUsername();
+    String getEmail();
+}
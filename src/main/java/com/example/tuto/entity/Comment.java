@@ -1,5 +1,6 @@
 package com.example.tuto.entity;
 
+import com.example.tuto.utils.AppConstants;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -14,12 +15,23 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 
 @Entity
-@Table(name = "comments")
+@Table(
+        name = "comments",
+        indexes = {
+                @Index(name = "idx_comments_post_id", columnList = "post_id, id"),
+                @Index(name = "idx_comments_post_date_created", columnList = "post_id, date_created, id"),
+                // Latest comment change of a post (ETag of a conditional GET) read from the index alone
+                @Index(name = "idx_comments_post_last_updated", columnList = "post_id, last_updated")
+        }
+)
 public class Comment {
     @Id
+    // Pooled sequence instead of IDENTITY so that Hibernate can batch inserts
     @GeneratedValue(
-            strategy = GenerationType.IDENTITY
+            strategy = GenerationType.SEQUENCE,
+            generator = "comments_seq"
     )
+    @SequenceGenerator(name = "comments_seq", sequenceName = "comments_seq", allocationSize = AppConstants.ID_ALLOCATION_SIZE)
     private Long id;
     @Column(name = "name", nullable = false)
     private String name;
@@ -28,8 +40,10 @@ public class Comment {
     @Column(name = "body", nullable = false)
     private String body;
     @CreationTimestamp
+    @Column(name = "date_created")
     private LocalDateTime dateCreated;
     @UpdateTimestamp
+    @Column(name = "last_updated")
     private LocalDateTime lastUpdated;
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "post_id", nullable = false)
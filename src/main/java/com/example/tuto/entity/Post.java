@@ -1,7 +1,9 @@
 package com.example.tuto.entity;
 
+import com.example.tuto.utils.AppConstants;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -16,13 +18,20 @@ import java.util.Set;
 
 @Entity
 @Table(
-        name = "posts", uniqueConstraints = {@UniqueConstraint(columnNames = {"title"})}
+        name = "posts", uniqueConstraints = {@UniqueConstraint(columnNames = {"title"})},
+        indexes = {
+                @Index(name = "idx_posts_date_created", columnList = "date_created, id"),
+                @Index(name = "idx_posts_comment_count", columnList = "comment_count, id")
+        }
 )
 public class Post {
     @Id
+    // Pooled sequence instead of IDENTITY so that Hibernate can batch inserts
     @GeneratedValue(
-            strategy = GenerationType.IDENTITY
+            strategy = GenerationType.SEQUENCE,
+            generator = "posts_seq"
     )
+    @SequenceGenerator(name = "posts_seq", sequenceName = "posts_seq", allocationSize = AppConstants.ID_ALLOCATION_SIZE)
     private Long id;
     @Column(name = "title", nullable = false)
     private String title;
@@ -31,9 +40,15 @@ public class Post {
     @Column(name = "content", nullable = false)
     private String content;
     @CreationTimestamp
+    @Column(name = "date_created")
     private LocalDateTime dateCreated;
     @UpdateTimestamp
     private LocalDateTime lastUpdated;
+    // Maintained by CommentServiceImpl with atomic increments, repaired by CommentCountReconciliationJob.
+    // Never written by an entity update, which would overwrite concurrent increments with the value it loaded
+    @ColumnDefault("0")
+    @Column(name = "comment_count", nullable = false, updatable = false)
+    private long commentCount;
     @OneToMany(mappedBy = "post", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<Comment> comments = new HashSet<>();
 }
@@ -0,0 +1,50 @@
+package com.example.tuto.job;
+
+import com.example.tuto.repository.PostRepository;
+import com.example.tuto.utils.AppConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Repair the posts comment count when it drifted from the actual number of comments
+ * (comments written outside of CommentServiceImpl, counts of posts created before the column existed...)
+ */
+@Component
+public class CommentCountReconciliationJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommentCountReconciliationJob.class);
+
+    private final PostRepository postRepository;
+    private final CacheManager cacheManager;
+
+    public CommentCountReconciliationJob(PostRepository postRepository, CacheManager cacheManager) {
+        this.postRepository = postRepository;
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Recount the comments of all posts, by id ranges so that each update only locks a few posts.
+     * The bulk updates bypass the caches: after a repair the cached posts and payloads are evicted, else a payload
+     * with the old count would be served under the ETag of the new one.
+     * @return Number of repaired posts
+     */
+    @Scheduled(cron = "${app.comment-count.reconcile.cron}")
+    public int reconcile() {
+        long maxId = postRepository.findMaxId().orElse(0L);
+
+        int repaired = 0;
+        for (long fromId = 0; fromId < maxId; fromId += AppConstants.RECONCILE_CHUNK_SIZE) {
+            repaired += postRepository.reconcileCommentCounts(fromId, fromId + AppConstants.RECONCILE_CHUNK_SIZE);
+        }
+
+        if (repaired > 0) {
+            logger.warn("Repaired the comment count of {} posts", repaired);
+            cacheManager.getCache(AppConstants.POSTS_CACHE).clear();
+            cacheManager.getCache(AppConstants.POST_PAYLOADS_CACHE).clear();
+        }
+        return repaired;
+    }
+}
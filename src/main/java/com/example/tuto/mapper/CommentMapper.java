@@ -0,0 +1,21 @@
+package com.example.tuto.mapper;
+
+import com.example.tuto.dto.CommentDto;
+import com.example.tuto.entity.Comment;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * Comment entity / dto conversion, implementation generated at compile time by MapStruct
+ */
+@Mapper(componentModel = "spring")
+public interface CommentMapper {
+
+    CommentDto mapToDTO(Comment comment);
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "dateCreated", ignore = true)
+    @Mapping(target = "lastUpdated", ignore = true)
+    @Mapping(target = "post", ignore = true)
+    Comment mapToEntity(CommentDto commentDto);
+}
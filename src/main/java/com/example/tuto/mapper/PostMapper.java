@@ -0,0 +1,27 @@
+package com.example.tuto.mapper;
+
+import com.example.tuto.dto.PostDto;
+import com.example.tuto.entity.Post;
+import org.mapstruct.InjectionStrategy;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * Post entity / dto conversion, implementation generated at compile time by MapStruct
+ */
+@Mapper(componentModel = "spring", uses = CommentMapper.class, injectionStrategy = InjectionStrategy.CONSTRUCTOR)
+public interface PostMapper {
+
+    PostDto mapToDTO(Post post);
+
+    @Mapping(target = "comments", ignore = true)
+    PostDto mapToDTOWithoutComments(Post post);
+
+    // The id is generated by the database, comments are added through their own endpoint
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "commentCount", ignore = true)
+    @Mapping(target = "dateCreated", ignore = true)
+    @Mapping(target = "lastUpdated", ignore = true)
+    @Mapping(target = "comments", ignore = true)
+    Post mapToEntity(PostDto postDto);
+}
@@ -0,0 +1,90 @@
+package com.example.tuto.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time the calls to the services, the mappers and the token and user lookups of the security layer,
+ * as the app.layer timer tagged by layer, class, method, endpoint and exception.
+ * Mapper calls made by another mapper (post comments) are timed on their own and inside their caller.
+ * The security lookups run in the filter chain, before the dispatcher servlet: their endpoint is looked up
+ * in the handler mapping of the controllers, once per request.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "app.metrics.hot-path.enabled", havingValue = "true")
+public class LayerMetricsAspect {
+
+    public static final String TIMER = "app.layer";
+
+    private final MeterRegistry meterRegistry;
+    private final HandlerMapping handlerMapping;
+    // Built timers, a registration looks up the registry and allocates its tags
+    private final ConcurrentMap<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    // Lazy, the handler mapping is built after the advised beans
+    public LayerMetricsAspect(MeterRegistry meterRegistry,
+                              @Lazy @Qualifier("requestMappingHandlerMapping") HandlerMapping handlerMapping) {
+        this.meterRegistry = meterRegistry;
+        this.handlerMapping = handlerMapping;
+    }
+
+    @Around("execution(public * com.example.tuto.service.impl.*ServiceImpl.*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("service", joinPoint);
+    }
+
+    @Around("execution(public * com.example.tuto.mapper.*Mapper.*(..))")
+    public Object timeMapper(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("mapper", joinPoint);
+    }
+
+    @Around("execution(public * com.example.tuto.security.JwtTokenProvider.*(..))" +
+            " || execution(public * com.example.tuto.security.CustomUserDetailsService.loadUserByUsername(..))")
+    public Object timeSecurity(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("security", joinPoint);
+    }
+
+    private Object time(String layer, ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+            timers.computeIfAbsent(new TimerKey(layer, method, RequestEndpoint.current(handlerMapping), exception), this::register)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer register(TimerKey key) {
+        return Timer.builder(TIMER)
+                .description("Time spent in the calls of an application layer")
+                .tag("layer", key.layer())
+                .tag("class", key.method().getDeclaringClass().getSimpleName())
+                .tag("method", key.method().getName())
+                .tag("endpoint", key.endpoint())
+                .tag("exception", key.exception())
+                .register(meterRegistry);
+    }
+
+    private record TimerKey(String layer, Method method, String endpoint, String exception) {
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.tuto.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Endpoint tag of the metrics: http method and route pattern ("GET /api/posts/{id}"), never the raw uri
+ */
+public class RequestEndpoint {
+
+    // Outside of a request (scheduled jobs, write-behind flushes), or on a uri without handler
+    public static final String NONE = "none";
+
+    // Endpoint resolved in the filter chain, once per request
+    private static final String FILTER_ENDPOINT_ATTRIBUTE = RequestEndpoint.class.getName() + ".FILTER_ENDPOINT";
+
+    private RequestEndpoint() {
+    }
+
+    /**
+     * @return Endpoint of the request handled by the current thread
+     */
+    public static String current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            return of(servletAttributes.getRequest());
+        }
+        return NONE;
+    }
+
+    /**
+     * Endpoint of the request handled by the current thread, also in the filter chain (security filters)
+     * where the dispatcher servlet has not resolved the handler yet.
+     *
+     * @param handlerMapping Handler mapping of the controllers, looked up on a copy of the request attributes
+     * @return Endpoint of the request handled by the current thread
+     */
+    public static String current(HandlerMapping handlerMapping) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return NONE;
+        }
+        HttpServletRequest request = servletAttributes.getRequest();
+        if (request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) != null) {
+            return of(request);
+        }
+        Object endpoint = request.getAttribute(FILTER_ENDPOINT_ATTRIBUTE);
+        if (endpoint == null) {
+            endpoint = lookup(request, handlerMapping);
+            request.setAttribute(FILTER_ENDPOINT_ATTRIBUTE, endpoint);
+        }
+        return (String) endpoint;
+    }
+
+    /**
+     * @param request Request
+     * @return Endpoint of the request
+     */
+    public static String of(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? request.getMethod() + " " + pattern : NONE;
+    }
+
+    private static String lookup(HttpServletRequest request, HandlerMapping handlerMapping) {
+        // The lookup sets the matching attributes, the dispatcher servlet must not see them
+        HttpServletRequest copy = new AttributesCopy(request);
+        try {
+            ServletRequestPathUtils.parseAndCache(copy);
+            return handlerMapping.getHandler(copy) != null ? of(copy) : NONE;
+        } catch (Exception e) {
+            // No handler for the method or the media types, the dispatcher servlet answers the error
+            return NONE;
+        }
+    }
+
+    private static class AttributesCopy extends HttpServletRequestWrapper {
+
+        private final Map<String, Object> attributes = new HashMap<>();
+
+        AttributesCopy(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            return attributes.containsKey(name) ? attributes.get(name) : super.getAttribute(name);
+        }
+
+        @Override
+        public void setAttribute(String name, Object value) {
+            attributes.put(name, value);
+        }
+
+        @Override
+        public void removeAttribute(String name) {
+            attributes.put(name, null);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.tuto.metrics;
+
+/**
+ * Hibernate work done for the request handled by the current thread, recorded by RequestStatisticsFilter
+ */
+public class RequestStatistics {
+
+    private static final ThreadLocal<RequestStatistics> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private int entityLoads;
+    private int collectionFetches;
+
+    /**
+     * Start recording on the current thread
+     * @return Statistics of the request
+     */
+    static RequestStatistics start() {
+        RequestStatistics statistics = new RequestStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return Statistics of the current request, null outside of a request
+     */
+    static RequestStatistics current() {
+        return CURRENT.get();
+    }
+
+    void statementPrepared() {
+        statements++;
+    }
+
+    void entityLoaded() {
+        entityLoads++;
+    }
+
+    void collectionFetched() {
+        collectionFetches++;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public int getEntityLoads() {
+        return entityLoads;
+    }
+
+    public int getCollectionFetches() {
+        return collectionFetches;
+    }
+}
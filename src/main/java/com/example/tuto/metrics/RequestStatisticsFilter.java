@@ -0,0 +1,70 @@
+package com.example.tuto.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Record the Hibernate work of each request, security filters included, as app.request.* distributions
+ * tagged by endpoint: prepared statements, entity loads and collection fetches.
+ * Work done on another thread (streamed exports, write-behind flushes) is not counted.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "app.metrics.hot-path.enabled", havingValue = "true")
+public class RequestStatisticsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, Summaries> summaries = new ConcurrentHashMap<>();
+
+    public RequestStatisticsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RequestStatistics statistics = RequestStatistics.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestStatistics.stop();
+            Summaries endpointSummaries = summaries.computeIfAbsent(RequestEndpoint.of(request), this::register);
+            endpointSummaries.statements().record(statistics.getStatements());
+            endpointSummaries.entityLoads().record(statistics.getEntityLoads());
+            endpointSummaries.collectionFetches().record(statistics.getCollectionFetches());
+        }
+    }
+
+    private Summaries register(String endpoint) {
+        return new Summaries(
+                summary("app.request.statements", "SQL statements prepared by a request", endpoint),
+                summary("app.request.entity.loads", "Entities loaded by a request", endpoint),
+                summary("app.request.collection.fetches", "Lazy collections fetched by a request", endpoint));
+    }
+
+    private DistributionSummary summary(String name, String description, String endpoint) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+    }
+
+    private record Summaries(DistributionSummary statements,
+                             DistributionSummary entityLoads,
+                             DistributionSummary collectionFetches) {
+    }
+}
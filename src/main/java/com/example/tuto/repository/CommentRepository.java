@@ -1,10 +1,56 @@
 package com.example.tuto.repository;
 
 import com.example.tuto.entity.Comment;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface CommentRepository extends JpaRepository<Comment, Long> {
-    List<Comment> findByPostId(long postId);
+public interface CommentRepository extends JpaRepository<Comment, Long>, CommentRepositoryCustom {
+    Page<Comment> findByPostId(long postId, Pageable pageable);
+
+    Optional<Comment> findByIdAndPostId(long id, long postId);
+
+    /**
+     * Update a comment only if it belongs to the post
+     * @return Number of updated comments, 0 if the comment does not exist in this post
+     */
+    @Modifying
+    @Query("update Comment c set c.name = :name, c.email = :email, c.body = :body, c.lastUpdated = :lastUpdated " +
+            "where c.id = :id and c.post.id = :postId")
+    int updateByIdAndPostId(@Param("id") long id,
+                            @Param("postId") long postId,
+                            @Param("name") String name,
+                            @Param("email") String email,
+                            @Param("body") String body,
+                            @Param("lastUpdated") LocalDateTime lastUpdated);
+
+    /**
+     * Delete a comment only if it belongs to the post
+     * @return Number of deleted comments, 0 if the comment does not exist in this post
+     */
+    @Modifying
+    @Query("delete from Comment c where c.id = :id and c.post.id = :postId")
+    int deleteByIdAndPostId(@Param("id") long id, @Param("postId") long postId);
+
+    @Query("select c.id from Comment c where c.post.id in :postIds")
+    List<Long> findIdsByPostIdIn(@Param("postIds") Collection<Long> postIds, Pageable pageable);
+
+    @Modifying
+    @Query("delete from Comment c where c.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("delete from Comment c where c.post.id in :postIds")
+    int deleteByPostIdIn(@Param("postIds") Collection<Long> postIds);
+
+    @Query("select c.lastUpdated from Comment c where c.id = :commentId and c.post.id = :postId")
+    Optional<LocalDateTime> findLastUpdated(@Param("postId") long postId, @Param("commentId") long commentId);
 }
@@ -0,0 +1,10 @@
+package com.example.tuto.repository;
+
+import com.example.tuto.entity.Comment;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+public interface CommentRepositoryCustom {
+    List<Comment> findByPostIdAfter(long postId, String sortBy, Sort.Direction direction, String afterValue, Long afterId, int limit);
+}
@@ -0,0 +1,47 @@
+package com.example.tuto.repository;
+
+import com.example.tuto.entity.Comment;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+public class CommentRepositoryCustomImpl implements CommentRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Get the comments of a post following a keyset position, without counting them
+     * @param postId Post id
+     * @param sortBy Sort by property
+     * @param direction Sorting direction
+     * @param afterValue Sort value of the last seen comment, null for the first page
+     * @param afterId Id of the last seen comment, null for the first page
+     * @param limit Maximum number of comments
+     * @return Comments
+     */
+    @Override
+    public List<Comment> findByPostIdAfter(long postId, String sortBy, Sort.Direction direction, String afterValue, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Comment> query = cb.createQuery(Comment.class);
+        Root<Comment> comment = query.from(Comment.class);
+
+        Predicate ofPost = cb.equal(comment.get("post").get("id"), postId);
+        if (afterId != null) {
+            query.where(ofPost, Keyset.after(cb, comment, sortBy, direction, afterValue, afterId));
+        } else {
+            query.where(ofPost);
+        }
+        query.orderBy(Keyset.orderBy(cb, comment, sortBy, direction));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
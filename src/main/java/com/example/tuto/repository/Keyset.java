@@ -0,0 +1,78 @@
+package com.example.tuto.repository;
+
+import com.example.tuto.exception.BlogAPIException;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Criteria helpers for keyset (seek) pagination on a sort key with the id as tie breaker
+ */
+final class Keyset {
+
+    private Keyset() {
+    }
+
+    /**
+     * Build the seek predicate "(sortBy, id) after (value, id)" in the given direction
+     */
+    static Predicate after(CriteriaBuilder cb, Root<?> root, String sortBy, Sort.Direction direction, String value, long id) {
+        Path<Long> idPath = root.get("id");
+        Predicate idAfter = direction.isAscending() ? cb.greaterThan(idPath, id) : cb.lessThan(idPath, id);
+        if ("id".equals(sortBy)) {
+            return idAfter;
+        }
+
+        Path<Comparable<Object>> sortPath = root.get(sortBy);
+        Comparable<Object> sortValue = parse(sortPath.getJavaType(), value);
+        Predicate sortAfter = direction.isAscending()
+                ? cb.greaterThan(sortPath, sortValue)
+                : cb.lessThan(sortPath, sortValue);
+
+        return cb.or(sortAfter, cb.and(cb.equal(sortPath, sortValue), idAfter));
+    }
+
+    /**
+     * Order by the sort key then by id, both in the given direction
+     */
+    static List<Order> orderBy(CriteriaBuilder cb, Root<?> root, String sortBy, Sort.Direction direction) {
+        Expression<?> sortPath = root.get(sortBy);
+        Expression<?> idPath = root.get("id");
+        if ("id".equals(sortBy)) {
+            return List.of(direction.isAscending() ? cb.asc(idPath) : cb.desc(idPath));
+        }
+        return direction.isAscending()
+                ? List.of(cb.asc(sortPath), cb.asc(idPath))
+                : List.of(cb.desc(sortPath), cb.desc(idPath));
+    }
+
+    /**
+     * Sort value of a cursor, typed as its attribute. The cursor comes from the client, a value that does not parse
+     * is a bad request.
+     */
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> parse(Class<?> type, String value) {
+        Object parsed;
+        try {
+            if (type == Long.class || type == long.class) {
+                parsed = Long.valueOf(value);
+            } else if (type == LocalDateTime.class) {
+                parsed = LocalDateTime.parse(value);
+            } else {
+                parsed = value;
+            }
+        } catch (NumberFormatException | DateTimeParseException ex) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+        return (Comparable<Object>) parsed;
+    }
+}
@@ -1,8 +1,91 @@
 package com.example.tuto.repository;
 
+import com.example.tuto.dto.PostSummary;
+import com.example.tuto.dto.PostVersion;
 import com.example.tuto.entity.Post;
+import com.example.tuto.utils.AppConstants;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface PostRepository extends JpaRepository<Post, Long> {
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+public interface PostRepository extends JpaRepository<Post, Long>, PostRepositoryCustom {
+
+    @Query(value = "select p.id from Post p", countQuery = "select count(p) from Post p")
+    Page<Long> findAllIds(Pageable pageable);
+
+    @EntityGraph(attributePaths = "comments")
+    Optional<Post> findWithCommentsById(long id);
+
+    @EntityGraph(attributePaths = "comments")
+    List<Post> findAllWithCommentsByIdIn(Collection<Long> ids);
+
+    @Query(value = "select p.id as id, p.title as title, p.description as description, " +
+            "p.dateCreated as dateCreated, p.lastUpdated as lastUpdated, p.commentCount as commentCount " +
+            "from Post p",
+            countQuery = "select count(p) from Post p")
+    Page<PostSummary> findAllSummaries(Pageable pageable);
+
+    @Query("select p.lastUpdated as lastUpdated, p.commentCount as commentCount, " +
+            "(select max(c.lastUpdated) from Comment c where c.post = p) as commentsLastUpdated " +
+            "from Post p where p.id = :id")
+    Optional<PostVersion> findVersionById(@Param("id") long id);
+
+    /**
+     * Add delta to the comment count of a post in a single statement, safe under concurrent comments
+     * @return Number of updated posts, 0 if the post does not exist
+     */
+    @Transactional
+    @Modifying
+    @Query("update Post p set p.commentCount = p.commentCount + :delta where p.id = :id")
+    int adjustCommentCount(@Param("id") long id, @Param("delta") int delta);
+
+    /**
+     * Reset the comment count of the posts of an id range to their actual number of comments
+     * @return Number of repaired posts
+     */
+    @Transactional
+    @Modifying
+    @Query("update Post p set p.commentCount = (select count(c) from Comment c where c.post = p) " +
+            "where p.id > :fromId and p.id <= :toId " +
+            "and p.commentCount <> (select count(c) from Comment c where c.post = p)")
+    int reconcileCommentCounts(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    /**
+     * Reset the comment count of some posts to their actual number of comments, in the current transaction
+     * @return Number of updated posts
+     */
+    @Modifying
+    @Query("update Post p set p.commentCount = (select count(c) from Comment c where c.post = p) where p.id in :ids")
+    int recountComments(@Param("ids") Collection<Long> ids);
+
+    @Query("select max(p.id) from Post p")
+    Optional<Long> findMaxId();
+
+    @Query("select p.id from Post p where p.dateCreated < :createdBefore order by p.id")
+    List<Long> findIdsCreatedBefore(@Param("createdBefore") LocalDateTime createdBefore, Pageable pageable);
+
+    @Modifying
+    @Query("delete from Post p where p.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = AppConstants.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p from Post p order by p.id")
+    Stream<Post> streamAll();
 }
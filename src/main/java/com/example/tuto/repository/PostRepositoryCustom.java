@@ -0,0 +1,9 @@
+package com.example.tuto.repository;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+public interface PostRepositoryCustom {
+    List<Long> findIdsAfter(String sortBy, Sort.Direction direction, String afterValue, Long afterId, int limit);
+}
@@ -0,0 +1,43 @@
+package com.example.tuto.repository;
+
+import com.example.tuto.entity.Post;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+public class PostRepositoryCustomImpl implements PostRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Get the ids of the posts following a keyset position, without counting the table
+     * @param sortBy Sort by property
+     * @param direction Sorting direction
+     * @param afterValue Sort value of the last seen post, null for the first page
+     * @param afterId Id of the last seen post, null for the first page
+     * @param limit Maximum number of posts
+     * @return Post ids
+     */
+    @Override
+    public List<Long> findIdsAfter(String sortBy, Sort.Direction direction, String afterValue, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Post> post = query.from(Post.class);
+        query.select(post.get("id"));
+
+        if (afterId != null) {
+            query.where(Keyset.after(cb, post, sortBy, direction, afterValue, afterId));
+        }
+        query.orderBy(Keyset.orderBy(cb, post, sortBy, direction));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
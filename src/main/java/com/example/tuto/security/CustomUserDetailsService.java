@@ -2,9 +2,12 @@ package com.example.tuto.security;
 
 import com.example.tuto.entity.User;
 import com.example.tuto.repository.UserRepository;
+import com.example.tuto.utils.AppConstants;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -13,7 +16,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private UserRepository userRepository;
 
@@ -35,4 +38,18 @@ public class CustomUserDetailsService implements UserDetailsService {
 
         return new org.springframework.security.core.userdetails.User(user.getEmail(), user.getPassword(), authoritySet);
     }
+
+    /**
+     * Called by the authentication provider after a successful login when the stored hash was made with another
+     * cost factor than app.password.strength: the password is stored again with the current one
+     * @param user authenticated user, named by its email
+     * @param newPassword password encoded with the current cost factor
+     * @return user with the new password
+     */
+    @Override
+    @CacheEvict(cacheNames = AppConstants.USER_DETAILS_CACHE, key = "#user.username")
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        return org.springframework.security.core.userdetails.User.withUserDetails(user).password(newPassword).build();
+    }
 }
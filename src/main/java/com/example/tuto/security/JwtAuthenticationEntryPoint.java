@@ -15,6 +15,9 @@ public class JwtAuthenticationEntryPoint implements AuthenticationEntryPoint {
     public void commence(HttpServletRequest request,
                          HttpServletResponse response,
                          AuthenticationException authException) throws IOException, ServletException {
-        response.sendError(HttpServletResponse.SC_UNAUTHORIZED, authException.getMessage());
+        // A refused token says more than "Full authentication is required"
+        Object invalidToken = request.getAttribute(JwtAuthenticationFilter.INVALID_TOKEN_ATTRIBUTE);
+        response.sendError(HttpServletResponse.SC_UNAUTHORIZED,
+                invalidToken != null ? invalidToken.toString() : authException.getMessage());
     }
 }
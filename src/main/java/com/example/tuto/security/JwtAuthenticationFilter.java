@@ -1,28 +1,61 @@
 package com.example.tuto.security;
 
+import com.example.tuto.exception.BlogAPIException;
+import com.example.tuto.utils.AppConstants;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.CachingUserDetailsService;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextHolderStrategy;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.core.userdetails.cache.SpringCacheBasedUserCache;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
+import org.springframework.util.function.SingletonSupplier;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.function.Supplier;
 
+/**
+ * Authenticate requests from their bearer token, lazily: the token is only verified, and the user loaded,
+ * when an authorization decision asks for the authentication. Permitted routes (GET /api/**) never do, so a
+ * token costs them nothing and an invalid one does not fail them. An invalid token leaves the request anonymous.
+ */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    // Why the token of the request was refused, reported by JwtAuthenticationEntryPoint
+    public static final String INVALID_TOKEN_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".INVALID_TOKEN";
+
+    // Authority never granted from the token claims alone
+    private static final String PRIVILEGED_AUTHORITY = "ROLE_ADMIN";
+
+    private final SecurityContextHolderStrategy securityContextHolderStrategy = SecurityContextHolder.getContextHolderStrategy();
     private final JwtTokenProvider jwtTokenProvider;
+    // Short lived cache in front of the users table, see app.cache.user-details.spec
     private final UserDetailsService userDetailsService;
 
-    public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider, UserDetailsService userDetailsService, CacheManager cacheManager) {
         this.jwtTokenProvider = jwtTokenProvider;
-        this.userDetailsService = userDetailsService;
+
+        // Not a bean: a second UserDetailsService bean would stop Spring Security from using CustomUserDetailsService for logins
+        CachingUserDetailsService cachingUserDetailsService = new CachingUserDetailsService(userDetailsService);
+        cachingUserDetailsService.setUserCache(new SpringCacheBasedUserCache(cacheManager.getCache(AppConstants.USER_DETAILS_CACHE)));
+        this.userDetailsService = cachingUserDetailsService;
     }
 
     @Override
@@ -33,24 +66,55 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Get JWT token from http request
         String token = getTokenFromRequest(request);
 
-        // Validate the JWT token
-        if(StringUtils.hasText(token) && jwtTokenProvider.validateToken(token)) {
-            // Get username from token
-            String username = jwtTokenProvider.getUsername(token);
-
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        if(StringUtils.hasText(token)) {
+            Supplier<SecurityContext> previousContext = securityContextHolderStrategy.getDeferredContext();
+            securityContextHolderStrategy.setDeferredContext(
+                    SingletonSupplier.of(() -> authenticate(token, request, previousContext)));
+        }
 
-            UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-                    userDetails,
-                    null,
-                    userDetails.getAuthorities());
+        filterChain.doFilter(request, response);
+    }
 
-            authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+    private SecurityContext authenticate(String token, HttpServletRequest request, Supplier<SecurityContext> previousContext) {
+        UserDetails userDetails;
+        try {
+            // Validate the JWT token and get its claims, in a single parse
+            Claims claims = jwtTokenProvider.parseClaims(token);
+            List<GrantedAuthority> authorities = jwtTokenProvider.getAuthorities(claims);
 
-            SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+            if (authorities == null || !isReadOnly(request) || isPrivileged(authorities)) {
+                // Tokens issued before roles were added to the claims, writes and admin tokens check that the user
+                // still exists and use its current roles, a revoked admin keeps its rights one cache TTL at most
+                userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+            } else {
+                // Reads of non-privileged users trust the token alone, no user lookup
+                userDetails = new User(claims.getSubject(), "", authorities);
+            }
+        } catch (BlogAPIException | UsernameNotFoundException e) {
+            logger.debug("Ignoring bearer token: " + e.getMessage());
+            request.setAttribute(INVALID_TOKEN_ATTRIBUTE, e.getMessage());
+            return previousContext.get();
         }
 
-        filterChain.doFilter(request, response);
+        UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
+                userDetails,
+                null,
+                userDetails.getAuthorities());
+
+        authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+        SecurityContext context = securityContextHolderStrategy.createEmptyContext();
+        context.setAuthentication(authenticationToken);
+        return context;
+    }
+
+    private boolean isPrivileged(List<GrantedAuthority> authorities) {
+        return authorities.stream().anyMatch(authority -> PRIVILEGED_AUTHORITY.equals(authority.getAuthority()));
+    }
+
+    private boolean isReadOnly(HttpServletRequest request) {
+        String method = request.getMethod();
+        return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method) || HttpMethod.OPTIONS.matches(method);
     }
 
     /**
@@ -1,25 +1,56 @@
 package com.example.tuto.security;
 
 import com.example.tuto.exception.BlogAPIException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtTokenProvider {
 
+    // Granted authorities of the user, so that requests can be authorized without loading the user
+    public static final String ROLES_CLAIM = "roles";
+
+    private final long jwtExpirationDate;
+    // Built once, both are immutable and thread safe
+    private final Key key;
+    private final JwtParser parser;
+    // Claims of the tokens already verified, keyed by token digest, each entry expires with its token
+    private final Cache<String, Claims> verifiedTokens;
+
     // @Value => Récupère la valeur dans le fichier application.properties  par sa clé
-    @Value("${app.jwt-secret}")
-    private String jwtSecret;
-    @Value("${app-jwt-expiration-milliseconds}")
-    private long jwtExpirationDate;
+    public JwtTokenProvider(@Value("${app.jwt-secret}") String jwtSecret,
+                            @Value("${app-jwt-expiration-milliseconds}") long jwtExpirationDate,
+                            @Value("${app.jwt.cache.maximum-size}") long cacheMaximumSize) {
+        this.jwtExpirationDate = jwtExpirationDate;
+        this.key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfter(new TokenExpiry())
+                .build();
+    }
 
     /**
      * Generate a JWT token
@@ -31,22 +62,52 @@ public class JwtTokenProvider {
         Date currentDate = new Date();
         Date expireDate = new Date(currentDate.getTime() + jwtExpirationDate);
 
+        List<String> roles = authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+
         return Jwts.builder()
                 .setSubject(username)
+                .claim(ROLES_CLAIM, roles)
                 .setIssuedAt(new Date())
                 .setExpiration(expireDate)
-                .signWith(key())
+                .signWith(key)
                 .compact();
     }
 
     /**
-     * Decode JWT secret key
-     * @return Decoded secret jwt key
+     * Verify a token and get its claims, the signature is only checked the first time a token is seen
+     * @param token JWT token
+     * @return Token claims
      */
-    private Key key() {
-        return Keys.hmacShaKeyFor(
-                Decoders.BASE64.decode(jwtSecret)
-        );
+    public Claims parseClaims(String token) {
+        String digest = digest(token);
+        Claims claims = verifiedTokens.getIfPresent(digest);
+        if (claims == null) {
+            claims = verify(token);
+            verifiedTokens.put(digest, claims);
+        }
+        return claims;
+    }
+
+    /**
+     * Get the granted authorities of a token
+     * @param claims Token claims
+     * @return Authorities, null if the token has no roles claim
+     */
+    public List<GrantedAuthority> getAuthorities(Claims claims) {
+        List<?> roles;
+        try {
+            roles = claims.get(ROLES_CLAIM, List.class);
+        } catch (RequiredTypeException ex) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Invalid JWT roles claim");
+        }
+        if (roles == null) {
+            return null;
+        }
+        return roles.stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role.toString()))
+                .toList();
     }
 
     /**
@@ -55,13 +116,7 @@ public class JwtTokenProvider {
      * @return Username
      */
     public String getUsername(String token) {
-       Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-       return claims.getSubject();
+        return parseClaims(token).getSubject();
     }
 
     /**
@@ -70,22 +125,61 @@ public class JwtTokenProvider {
      * @return True if token is valid
      */
     public boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder()
-                    .setSigningKey(key())
-                    .build()
-                    .parse(token);
+        parseClaims(token);
+        return true;
+    }
 
-            return true;
+    private Claims verify(String token) {
+        try {
+            return parser.parseClaimsJws(token).getBody();
         } catch (MalformedJwtException ex) {
             throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Invalid JWT token");
+        } catch (SecurityException ex) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Invalid JWT signature");
         } catch (ExpiredJwtException ex) {
             throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Expired JWT token");
         } catch (UnsupportedJwtException ex) {
             throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Unsupported JWT token");
-        }catch (IllegalArgumentException ex) {
+        } catch (IllegalArgumentException ex) {
             throw new BlogAPIException(HttpStatus.BAD_REQUEST, "JWT claims string is empty");
+        } catch (JwtException ex) {
+            // Premature token and any other failure of the parser
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Invalid JWT token");
+        }
+    }
+
+    /**
+     * SHA-256 of the token, so that the cache does not keep usable tokens in memory
+     */
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A verified token stays cached until its expiration date, never longer
+     */
+    private class TokenExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String digest, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            long millis = expiration != null ? expiration.getTime() - System.currentTimeMillis() : jwtExpirationDate;
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(digest, claims, currentTime);
         }
 
+        @Override
+        public long expireAfterRead(String digest, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
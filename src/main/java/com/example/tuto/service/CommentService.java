@@ -1,13 +1,17 @@
 package com.example.tuto.service;
 
 import com.example.tuto.dto.CommentDto;
+import com.example.tuto.dto.CommentResponse;
+import com.example.tuto.dto.CommentSliceResponse;
 
-import java.util.List;
+import java.util.Optional;
 
 public interface CommentService {
     CommentDto createComment(long postId, CommentDto commentDto);
-    List<CommentDto> getCommentsByPostId(long postId);
+    CommentResponse getCommentsByPostId(long postId, int pageNo, int pageSize, String sortBy, String sortDir);
+    CommentSliceResponse getCommentsByPostIdAfter(long postId, String after, int pageSize, String sortBy, String sortDir);
     CommentDto getCommentById(long postId, long commentId);
+    Optional<String> findCommentETag(long postId, long commentId);
     CommentDto updateComment(long postId, long commentId, CommentDto commentDto);
     void deleteComment(long postId, long commentId);
 }
@@ -0,0 +1,270 @@
+package com.example.tuto.service;
+
+import com.example.tuto.dto.CommentDto;
+import com.example.tuto.dto.PendingCommentDto;
+import com.example.tuto.entity.Comment;
+import com.example.tuto.exception.BlogAPIException;
+import com.example.tuto.exception.ResourceNotFoundException;
+import com.example.tuto.mapper.CommentMapper;
+import com.example.tuto.repository.PostRepository;
+import com.example.tuto.utils.AppConstants;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind comment creation: comments are acknowledged once queued, then inserted by a single flusher thread
+ * in batches of batchSize comments or every flushInterval, whichever comes first.
+ * A failed batch is retried with exponential backoff, then saved one comment at a time so that only the comments
+ * that still fail are given up, to the dead letter log.
+ * Queued comments are lost if the process dies before they are flushed, they are drained on a clean shutdown.
+ */
+@Component
+@ConditionalOnProperty(name = "app.comments.write-behind.enabled", havingValue = "true")
+public class CommentWriteBehindQueue implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommentWriteBehindQueue.class);
+    // Acknowledged comments that could not be saved, logged in full so that they can be replayed
+    private static final Logger deadLetterLogger = LoggerFactory.getLogger(CommentWriteBehindQueue.class.getName() + ".deadLetter");
+
+    // The dto is kept rather than the entity: an entity persisted by a rolled back transaction can not be persisted again
+    private record PendingComment(long postId, CommentDto commentDto) {
+    }
+
+    private final BlockingQueue<PendingComment> queue;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final PostRepository postRepository;
+    private final CommentMapper commentMapper;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache postsCache;
+    private final Cache postPayloadsCache;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public CommentWriteBehindQueue(@Value("${app.comments.write-behind.queue-capacity}") int queueCapacity,
+                                   @Value("${app.comments.write-behind.batch-size}") int batchSize,
+                                   @Value("${app.comments.write-behind.flush-interval}") Duration flushInterval,
+                                   @Value("${app.comments.write-behind.retry.max-attempts}") int maxAttempts,
+                                   @Value("${app.comments.write-behind.retry.backoff}") Duration retryBackoff,
+                                   PostRepository postRepository,
+                                   CommentMapper commentMapper,
+                                   EntityManager entityManager,
+                                   TransactionTemplate transactionTemplate,
+                                   CacheManager cacheManager) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.postRepository = postRepository;
+        this.commentMapper = commentMapper;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.postsCache = cacheManager.getCache(AppConstants.POSTS_CACHE);
+        this.postPayloadsCache = cacheManager.getCache(AppConstants.POST_PAYLOADS_CACHE);
+    }
+
+    /**
+     * Queue a comment for insertion
+     * @param postId Associated post
+     * @param commentDto Comment to add to the post, already validated
+     * @return Queued comment with a provisional id
+     */
+    public PendingCommentDto submit(long postId, CommentDto commentDto) {
+        if (!running) {
+            throw new BlogAPIException(HttpStatus.SERVICE_UNAVAILABLE, "Comments are not accepted while shutting down");
+        }
+        // Cheap check so that comments of unknown posts are rejected now rather than dropped by the flusher
+        if (!postRepository.existsById(postId)) {
+            throw new ResourceNotFoundException("Post", "id", postId);
+        }
+
+        // Backpressure: never block a request thread on a full queue
+        if (!queue.offer(new PendingComment(postId, commentDto))) {
+            throw new BlogAPIException(HttpStatus.SERVICE_UNAVAILABLE, "Too many pending comments, retry later");
+        }
+
+        return new PendingCommentDto(UUID.randomUUID().toString(), postId, commentDto);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        flusher = new Thread(this::flushLoop, "comment-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Stop accepting comments, then wait for the flusher to save the queued ones
+     */
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Comments offered while the flusher was exiting
+        List<PendingComment> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            save(remaining);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stopped after the web server so that no request is accepted once the queue drained,
+     * started before it for the same reason
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void flushLoop() {
+        List<PendingComment> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingComment first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Fill the batch until it is full or the flush interval elapsed
+                long deadline = System.nanoTime() + flushInterval.toNanos();
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    PendingComment next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                save(batch);
+            } catch (InterruptedException e) {
+                // Not expected, the flusher is stopped through the running flag: save what was already taken from the queue
+                Thread.currentThread().interrupt();
+                save(batch);
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Save a batch, retrying it with exponential backoff, then one comment at a time
+     */
+    private void save(List<PendingComment> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Duration backoff = retryBackoff;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                flush(batch);
+                return;
+            } catch (RuntimeException e) {
+                logger.warn("Could not save {} queued comments, attempt {} of {}", batch.size(), attempt, maxAttempts, e);
+            }
+            if (attempt < maxAttempts && !sleep(backoff)) {
+                break;
+            }
+            backoff = backoff.multipliedBy(2);
+        }
+
+        // Isolate the comments that can not be saved, the others are saved on their own
+        for (PendingComment pending : batch) {
+            try {
+                flush(List.of(pending));
+            } catch (RuntimeException e) {
+                deadLetterLogger.error("Dropped queued comment of post {}: name={}, email={}, body={}", pending.postId(),
+                        pending.commentDto().getName(), pending.commentDto().getEmail(), pending.commentDto().getBody(), e);
+            }
+        }
+    }
+
+    /**
+     * @return False if interrupted
+     */
+    private static boolean sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Insert a batch of comments in one transaction, with one comment count update per post
+     */
+    private void flush(List<PendingComment> batch) {
+        Map<Long, List<CommentDto>> commentsByPost = batch.stream()
+                .collect(Collectors.groupingBy(PendingComment::postId, Collectors.mapping(PendingComment::commentDto, Collectors.toList())));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+
+            commentsByPost.forEach((postId, comments) -> {
+                // The post may have been deleted since the comments were accepted
+                if (postRepository.adjustCommentCount(postId, comments.size()) == 0) {
+                    logger.warn("Dropped {} queued comments of deleted post {}", comments.size(), postId);
+                    return;
+                }
+                for (CommentDto commentDto : comments) {
+                    Comment comment = commentMapper.mapToEntity(commentDto);
+                    comment.setPost(postRepository.getReferenceById(postId));
+                    entityManager.persist(comment);
+                }
+            });
+
+            entityManager.flush();
+            entityManager.clear();
+        });
+
+        commentsByPost.keySet().forEach(postId -> {
+            postsCache.evict(postId);
+            postPayloadsCache.evict(postId);
+        });
+    }
+}
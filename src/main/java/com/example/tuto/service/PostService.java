@@ -1,18 +1,40 @@
 package com.example.tuto.service;
 
 import com.example.tuto.dto.PostDto;
+import com.example.tuto.dto.PostImportReport;
 import com.example.tuto.dto.PostResponse;
+import com.example.tuto.dto.PostSliceResponse;
+import com.example.tuto.dto.PostSummaryResponse;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface PostService {
     PostDto createPost(PostDto postDto);
 
     PostResponse getAllPosts(int pageNo, int pageSize, String sortBy, String sortDir);
 
+    PostSummaryResponse getAllPostSummaries(int pageNo, int pageSize, String sortBy, String sortDir);
+
+    PostSliceResponse getPostsAfter(String after, int pageSize, String sortBy, String sortDir);
+
     PostDto getPostById(long id);
 
+    Optional<String> findPostETag(long id);
+
     PostDto updatePost(PostDto postDto, long id);
 
     void deletePostById(long id);
+
+    long deletePosts(Collection<Long> ids);
+
+    long deletePostsCreatedBefore(LocalDateTime createdBefore);
+
+    void exportPosts(Consumer<PostDto> consumer);
+
+    PostImportReport importPosts(Iterator<PostDto> posts, int batchSize);
 }
@@ -0,0 +1,92 @@
+package com.example.tuto.service;
+
+import com.example.tuto.dto.UserIdentity;
+import com.example.tuto.repository.UserRepository;
+import com.example.tuto.utils.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter of the usernames and emails taken, so that registration only queries the database
+ * when a name might be taken. A miss is definite, a hit is checked with the exists queries.
+ *
+ * The filter is filled by a streaming scan of the users at startup and by the registrations of this instance.
+ * Users created elsewhere (another instance, SQL) are missed until the next start: the unique constraints
+ * of the users table stay the final check. Until the scan is done every name is reported as maybe taken.
+ * Names are lower-cased, as MySQL compares them case-insensitively.
+ */
+@Component
+public class RegisteredUsersIndex implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegisteredUsersIndex.class);
+
+    private final UserRepository userRepository;
+    private final BloomFilter names;
+    private volatile boolean loaded;
+
+    /**
+     * @param userRepository Users scanned at startup
+     * @param expectedUsers Users the filter is sized for, a username and an email each
+     * @param falsePositiveProbability Probability that a free name is reported as maybe taken
+     */
+    public RegisteredUsersIndex(UserRepository userRepository,
+                                @Value("${app.users.bloom-filter.expected-users}") long expectedUsers,
+                                @Value("${app.users.bloom-filter.false-positive-probability}") double falsePositiveProbability) {
+        this.userRepository = userRepository;
+        this.names = new BloomFilter(expectedUsers * 2, falsePositiveProbability);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        AtomicLong users = new AtomicLong();
+        try (Stream<UserIdentity> identities = userRepository.streamIdentities()) {
+            identities.forEach(identity -> {
+                add(identity.getUsername(), identity.getEmail());
+                users.incrementAndGet();
+            });
+        }
+        loaded = true;
+        logger.info("Indexed {} registered users in {} ms", users.get(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * @param username Username to register
+     * @return false if no user has this username, true if one might have it
+     */
+    public boolean mightHaveUsername(String username) {
+        return !loaded || names.mightContain("u:" + normalize(username));
+    }
+
+    /**
+     * @param email Email to register
+     * @return false if no user has this email, true if one might have it
+     */
+    public boolean mightHaveEmail(String email) {
+        return !loaded || names.mightContain("e:" + normalize(email));
+    }
+
+    /**
+     * Record the names of a registered user
+     * @param username Username of the user
+     * @param email Email of the user
+     */
+    public void add(String username, String email) {
+        names.put("u:" + normalize(username));
+        names.put("e:" + normalize(email));
+    }
+
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
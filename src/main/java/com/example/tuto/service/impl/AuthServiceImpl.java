@@ -9,6 +9,8 @@ import com.example.tuto.repository.RoleRepository;
 import com.example.tuto.repository.UserRepository;
 import com.example.tuto.security.JwtTokenProvider;
 import com.example.tuto.service.AuthService;
+import com.example.tuto.service.RegisteredUsersIndex;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -16,8 +18,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.HashSet;
 import java.util.Set;
 
 @Service
@@ -28,17 +30,26 @@ public class AuthServiceImpl implements AuthService {
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider jwtTokenProvider;
+    private final RegisteredUsersIndex registeredUsersIndex;
+    private final TransactionTemplate transactionTemplate;
+
+    // Id of ROLE_USER, resolved by the first registration
+    private volatile Long userRoleId;
 
     public AuthServiceImpl(AuthenticationManager authenticationManager,
                            UserRepository userRepository,
                            RoleRepository roleRepository,
                            PasswordEncoder passwordEncoder,
-                           JwtTokenProvider jwtTokenProvider) {
+                           JwtTokenProvider jwtTokenProvider,
+                           RegisteredUsersIndex registeredUsersIndex,
+                           TransactionTemplate transactionTemplate) {
         this.authenticationManager = authenticationManager;
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtTokenProvider = jwtTokenProvider;
+        this.registeredUsersIndex = registeredUsersIndex;
+        this.transactionTemplate = transactionTemplate;
     }
 
     @Override
@@ -51,15 +62,24 @@ public class AuthServiceImpl implements AuthService {
         return jwtTokenProvider.generateToken(authentication);
     }
 
+    /**
+     * Register a user with ROLE_USER.
+     * The exists queries only run for names the registered users index might know, a new name goes straight
+     * to the insert and the unique constraints of the users table catch the names the index missed.
+     * @param registerDto User to register
+     * @return Confirmation message
+     */
     @Override
     public String register(RegisterDto registerDto) {
         // Check for username exists in database
-        if(userRepository.existsByUsername(registerDto.getUsername())) {
+        if(registeredUsersIndex.mightHaveUsername(registerDto.getUsername())
+                && userRepository.existsByUsername(registerDto.getUsername())) {
             throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Username is already exists.");
         }
 
         // Check for email exists in database
-        if(userRepository.existsByEmail(registerDto.getEmail())) {
+        if(registeredUsersIndex.mightHaveEmail(registerDto.getEmail())
+                && userRepository.existsByEmail(registerDto.getEmail())) {
             throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Email is already exists.");
         }
 
@@ -67,16 +87,46 @@ public class AuthServiceImpl implements AuthService {
         user.setName(registerDto.getName());
         user.setUsername(registerDto.getUsername());
         user.setEmail(registerDto.getEmail());
+        // Hashed before the transaction, no connection is held during the hash
         user.setPassword(passwordEncoder.encode(registerDto.getPassword()));
 
-        // New user has ROLE_USER by default
-        Set<Role> roleSet = new HashSet<>();
-        Role userRole = roleRepository.findByName("ROLE_USER").get();
-        roleSet.add(userRole);
-        user.setRoles(roleSet);
-
-        userRepository.save(user);
+        long roleId = userRoleId();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // New user has ROLE_USER by default, a reference is enough for the join table
+                user.setRoles(Set.of(roleRepository.getReferenceById(roleId)));
+                userRepository.save(user);
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw nameTaken(registerDto, e);
+        }
+        registeredUsersIndex.add(registerDto.getUsername(), registerDto.getEmail());
 
         return "User registered successfully.";
     }
+
+    private long userRoleId() {
+        Long roleId = userRoleId;
+        if (roleId == null) {
+            roleId = roleRepository.findByName("ROLE_USER")
+                    .map(Role::getId)
+                    .orElseThrow(() -> new IllegalStateException("ROLE_USER role is missing"));
+            userRoleId = roleId;
+        }
+        return roleId;
+    }
+
+    /**
+     * Failure path of the insert: find out which unique constraint it broke
+     */
+    private RuntimeException nameTaken(RegisterDto registerDto, DataIntegrityViolationException e) {
+        registeredUsersIndex.add(registerDto.getUsername(), registerDto.getEmail());
+        if (userRepository.existsByUsername(registerDto.getUsername())) {
+            return new BlogAPIException(HttpStatus.BAD_REQUEST, "Username is already exists.");
+        }
+        if (userRepository.existsByEmail(registerDto.getEmail())) {
+            return new BlogAPIException(HttpStatus.BAD_REQUEST, "Email is already exists.");
+        }
+        return e;
+    }
 }
@@ -1,31 +1,50 @@
 package com.example.tuto.service.impl;
 
 import com.example.tuto.dto.CommentDto;
+import com.example.tuto.dto.CommentResponse;
+import com.example.tuto.dto.CommentSliceResponse;
 import com.example.tuto.entity.Comment;
-import com.example.tuto.entity.Post;
 import com.example.tuto.exception.BlogAPIException;
 import com.example.tuto.exception.ResourceNotFoundException;
+import com.example.tuto.mapper.CommentMapper;
 import com.example.tuto.repository.CommentRepository;
 import com.example.tuto.repository.PostRepository;
 import com.example.tuto.service.CommentService;
-import org.modelmapper.ModelMapper;
+import com.example.tuto.utils.AppConstants;
+import com.example.tuto.utils.ETags;
+import com.example.tuto.utils.PageCursor;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class CommentServiceImpl implements CommentService {
 
+    // Properties covered by a (post_id, property, id) index
+    private static final Set<String> SORT_KEYS = Set.of("id", "dateCreated");
+
     private final CommentRepository commentRepository;
     private final PostRepository postRepository;
-    private final ModelMapper modelMapper;
+    private final CommentMapper commentMapper;
 
-    public CommentServiceImpl(CommentRepository commentRepository, PostRepository postRepository, ModelMapper modelMapper) {
+    public CommentServiceImpl(CommentRepository commentRepository, PostRepository postRepository, CommentMapper commentMapper) {
         this.commentRepository = commentRepository;
         this.postRepository = postRepository;
-        this.modelMapper = modelMapper;
+        this.commentMapper = commentMapper;
     }
 
     /**
@@ -35,15 +54,18 @@ public class CommentServiceImpl implements CommentService {
      * @return Created comment
      */
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = {AppConstants.POSTS_CACHE, AppConstants.POST_PAYLOADS_CACHE}, key = "#postId")
     public CommentDto createComment(long postId, CommentDto commentDto) {
         Comment comment = mapToEntity(commentDto);
 
-        // Retrieve post entity by id
-        Post post = postRepository.findById(postId).orElseThrow(
-                () -> new ResourceNotFoundException("Post", "id", postId));
+        // Increment the post comment count, no updated row means no post
+        if (postRepository.adjustCommentCount(postId, 1) == 0) {
+            throw new ResourceNotFoundException("Post", "id", postId);
+        }
 
-        // Set post to comment entity
-        comment.setPost(post);
+        // Set post to comment entity, the post itself does not need to be loaded
+        comment.setPost(postRepository.getReferenceById(postId));
 
         // Save comment entity to db
         Comment createdComment = commentRepository.save(comment);
@@ -52,14 +74,79 @@ public class CommentServiceImpl implements CommentService {
     }
 
     /**
-     * Get all comments from a post
+     * Get a page of comments from a post
      * @param postId Post id
+     * @param pageNo Page number
+     * @param pageSize Page size, capped to AppConstants.MAX_COMMENT_PAGE_SIZE
+     * @param sortBy Sort by property ("id" or "dateCreated")
+     * @param sortDir Sorting direction ("asc" or "desc")
      * @return Post comments
      */
     @Override
-    public List<CommentDto> getCommentsByPostId(long postId) {
-        List<Comment> comments = commentRepository.findByPostId(postId);
-        return comments.stream().map(this::mapToDTO).collect(Collectors.toList());
+    public CommentResponse getCommentsByPostId(long postId, int pageNo, int pageSize, String sortBy, String sortDir) {
+        checkSortKey(sortBy);
+        Sort.Direction direction = toDirection(sortDir);
+
+        // Id as tie breaker so that pages do not overlap on equal dates
+        Sort sort = "id".equals(sortBy) ? Sort.by(direction, "id") : Sort.by(direction, sortBy).and(Sort.by(direction, "id"));
+        Page<Comment> comments = commentRepository.findByPostId(postId, PageRequest.of(pageNo, boundPageSize(pageSize), sort));
+
+        List<CommentDto> content = comments.getContent().stream().map(this::mapToDTO).collect(Collectors.toList());
+
+        CommentResponse commentResponse = new CommentResponse();
+        commentResponse.setContent(content);
+        commentResponse.setPageNo(comments.getNumber());
+        commentResponse.setPageSize(comments.getSize());
+        commentResponse.setTotalElements(comments.getTotalElements());
+        commentResponse.setTotalPages(comments.getTotalPages());
+        commentResponse.setLast(comments.isLast());
+
+        return commentResponse;
+    }
+
+    /**
+     * Get the comments of a post following a cursor, without offset nor count
+     * @param postId Post id
+     * @param after Cursor returned by the previous page, empty for the first page
+     * @param pageSize Page size, capped to AppConstants.MAX_COMMENT_PAGE_SIZE
+     * @param sortBy Sort by property ("id" or "dateCreated"), ignored when a cursor is given
+     * @param sortDir Sorting direction ("asc" or "desc"), ignored when a cursor is given
+     * @return Post comments and the cursor of the next page
+     */
+    @Override
+    public CommentSliceResponse getCommentsByPostIdAfter(long postId, String after, int pageSize, String sortBy, String sortDir) {
+        PageCursor cursor = StringUtils.hasText(after) ? PageCursor.decode(after) : null;
+        if (cursor != null) {
+            sortBy = cursor.getSortBy();
+        }
+        Sort.Direction direction = cursor != null ? cursor.getDirection() : toDirection(sortDir);
+        checkSortKey(sortBy);
+        pageSize = boundPageSize(pageSize);
+
+        // Fetch one extra comment to know if there is a next page
+        List<Comment> comments = commentRepository.findByPostIdAfter(
+                postId,
+                sortBy,
+                direction,
+                cursor != null ? cursor.getValue() : null,
+                cursor != null ? cursor.getId() : null,
+                pageSize + 1);
+
+        boolean last = comments.size() <= pageSize;
+        if (!last) {
+            comments = comments.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (!last && !comments.isEmpty()) {
+            Comment lastComment = comments.get(comments.size() - 1);
+            Object lastValue = new BeanWrapperImpl(lastComment).getPropertyValue(sortBy);
+            nextCursor = new PageCursor(sortBy, direction, lastComment.getId(), String.valueOf(lastValue)).encode();
+        }
+
+        List<CommentDto> content = comments.stream().map(this::mapToDTO).collect(Collectors.toList());
+
+        return new CommentSliceResponse(content, pageSize, nextCursor, last);
     }
 
     /**
@@ -69,22 +156,26 @@ public class CommentServiceImpl implements CommentService {
      * @return A comment
      */
     @Override
+    @Cacheable(cacheNames = AppConstants.COMMENTS_CACHE, key = "#postId + ':' + #commentId")
     public CommentDto getCommentById(long postId, long commentId) {
-        // Retrieve post entity by id
-        Post post = postRepository.findById(postId).orElseThrow(
-                () -> new ResourceNotFoundException("Post", "id", postId));
-
-        // Retrieve comment by id
-        Comment comment = commentRepository.findById(commentId).orElseThrow(
-                () -> new ResourceNotFoundException("Comment", "id", postId));
-
-        if(!comment.getPost().getId().equals(post.getId())) {
-            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Comment does not belongs to post");
-        }
+        Comment comment = commentRepository.findByIdAndPostId(commentId, postId).orElseThrow(
+                () -> commentNotFound(postId, commentId));
 
         return mapToDTO(comment);
     }
 
+    /**
+     * Get the ETag of a comment without loading it
+     * @param postId Post id
+     * @param commentId Comment id
+     * @return ETag, empty if the comment does not exist in this post
+     */
+    @Override
+    public Optional<String> findCommentETag(long postId, long commentId) {
+        return commentRepository.findLastUpdated(postId, commentId)
+                .map(lastUpdated -> ETags.of(commentId, lastUpdated));
+    }
+
     /**
      * Update a comment from a post
      * @param postId Post id
@@ -93,26 +184,26 @@ public class CommentServiceImpl implements CommentService {
      * @return Updated comment
      */
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = {AppConstants.POSTS_CACHE, AppConstants.POST_PAYLOADS_CACHE}, key = "#postId"),
+            @CacheEvict(cacheNames = AppConstants.COMMENTS_CACHE, key = "#postId + ':' + #commentId")
+    })
+    @Transactional
     public CommentDto updateComment(long postId, long commentId, CommentDto commentDto) {
-        // Retrieve post entity by id
-        Post post = postRepository.findById(postId).orElseThrow(
-                () -> new ResourceNotFoundException("Post", "id", postId));
-
-        // Retrieve comment by id
-        Comment comment = commentRepository.findById(commentId).orElseThrow(
-                () -> new ResourceNotFoundException("Comment", "id", postId));
-
-        if(!comment.getPost().getId().equals(post.getId())) {
-            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Comment does not belongs to post");
+        int updated = commentRepository.updateByIdAndPostId(commentId, postId,
+                commentDto.getName(), commentDto.getEmail(), commentDto.getBody(), LocalDateTime.now());
+        if (updated == 0) {
+            throw commentNotFound(postId, commentId);
         }
 
-        comment.setName(commentDto.getName());
-        comment.setEmail(commentDto.getEmail());
-        comment.setBody(commentDto.getBody());
-
-        Comment updatedComment = commentRepository.save(comment);
+        // The comment is not read back, it holds exactly the given values
+        CommentDto updatedComment = new CommentDto();
+        updatedComment.setId(commentId);
+        updatedComment.setName(commentDto.getName());
+        updatedComment.setEmail(commentDto.getEmail());
+        updatedComment.setBody(commentDto.getBody());
 
-        return mapToDTO(updatedComment);
+        return updatedComment;
     }
 
     /**
@@ -121,22 +212,47 @@ public class CommentServiceImpl implements CommentService {
      * @param commentId Comment id
      */
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = {AppConstants.POSTS_CACHE, AppConstants.POST_PAYLOADS_CACHE}, key = "#postId"),
+            @CacheEvict(cacheNames = AppConstants.COMMENTS_CACHE, key = "#postId + ':' + #commentId")
+    })
+    @Transactional
     public void deleteComment(long postId, long commentId) {
-        // Retrieve post entity by id
-        Post post = postRepository.findById(postId).orElseThrow(
-                () -> new ResourceNotFoundException("Post", "id", postId));
+        if (commentRepository.deleteByIdAndPostId(commentId, postId) == 0) {
+            throw commentNotFound(postId, commentId);
+        }
+        postRepository.adjustCommentCount(postId, -1);
+    }
 
-        // Retrieve comment by id
-        Comment comment = commentRepository.findById(commentId).orElseThrow(
-                () -> new ResourceNotFoundException("Comment", "id", postId));
+    /**
+     * Explain why no comment matched (commentId, postId), only queried once the lookup or write failed
+     * @param postId Post id
+     * @param commentId Comment id
+     * @return Exception to throw
+     */
+    private RuntimeException commentNotFound(long postId, long commentId) {
+        if (!postRepository.existsById(postId)) {
+            return new ResourceNotFoundException("Post", "id", postId);
+        }
+        if (!commentRepository.existsById(commentId)) {
+            return new ResourceNotFoundException("Comment", "id", commentId);
+        }
+        return new BlogAPIException(HttpStatus.BAD_REQUEST, "Comment does not belongs to post");
+    }
 
-        if(!comment.getPost().getId().equals(post.getId())) {
-            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Comment does not belongs to post");
+    private void checkSortKey(String sortBy) {
+        if (!SORT_KEYS.contains(sortBy)) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Comments cannot be sorted by " + sortBy);
         }
+    }
 
-        commentRepository.delete(comment);
+    private Sort.Direction toDirection(String sortDir) {
+        return sortDir.equalsIgnoreCase(Sort.Direction.ASC.name()) ? Sort.Direction.ASC : Sort.Direction.DESC;
     }
 
+    private int boundPageSize(int pageSize) {
+        return Math.max(1, Math.min(pageSize, AppConstants.MAX_COMMENT_PAGE_SIZE));
+    }
 
     /**
      * Convert a comment entity to comment dto
@@ -144,7 +260,7 @@ public class CommentServiceImpl implements CommentService {
      * @return Comment dto
      */
     private CommentDto mapToDTO(Comment comment){
-        return modelMapper.map(comment, CommentDto.class);
+        return commentMapper.mapToDTO(comment);
     }
 
     /**
@@ -153,6 +269,6 @@ public class CommentServiceImpl implements CommentService {
      * @return Comment entity
      */
     private Comment mapToEntity(CommentDto commentDto){
-        return  modelMapper.map(commentDto, Comment.class);
+        return  commentMapper.mapToEntity(commentDto);
     }
 }
@@ -1,30 +1,90 @@
 package com.example.tuto.service.impl;
 
+import com.example.tuto.dto.CommentDto;
 import com.example.tuto.dto.PostDto;
+import com.example.tuto.dto.PostImportError;
+import com.example.tuto.dto.PostImportReport;
 import com.example.tuto.dto.PostResponse;
+import com.example.tuto.dto.PostSliceResponse;
+import com.example.tuto.dto.PostSummary;
+import com.example.tuto.dto.PostSummaryResponse;
+import com.example.tuto.entity.Comment;
 import com.example.tuto.entity.Post;
+import com.example.tuto.exception.BlogAPIException;
 import com.example.tuto.exception.ResourceNotFoundException;
+import com.example.tuto.mapper.CommentMapper;
+import com.example.tuto.mapper.PostMapper;
+import com.example.tuto.repository.CommentRepository;
 import com.example.tuto.repository.PostRepository;
 import com.example.tuto.service.PostService;
-import org.modelmapper.ModelMapper;
+import com.example.tuto.utils.AppConstants;
+import com.example.tuto.utils.ETags;
+import com.example.tuto.utils.PageCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 import java.util.stream.Collectors;
 
 @Service
 public class PostServiceImpl implements PostService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PostServiceImpl.class);
+
+    // Indexed properties a keyset cursor can seek on
+    private static final Set<String> CURSOR_SORT_KEYS = Set.of("id", "title", "dateCreated", "commentCount");
+
     private final PostRepository postRepository;
-    private final ModelMapper modelMapper;
+    private final CommentRepository commentRepository;
+    private final PostMapper postMapper;
+    private final CommentMapper commentMapper;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
 
-    public PostServiceImpl(PostRepository postRepository, ModelMapper modelMapper) {
+    public PostServiceImpl(PostRepository postRepository,
+                           CommentRepository commentRepository,
+                           PostMapper postMapper,
+                           CommentMapper commentMapper,
+                           EntityManager entityManager,
+                           TransactionTemplate transactionTemplate,
+                           Validator validator) {
         this.postRepository = postRepository;
-        this.modelMapper = modelMapper;
+        this.commentRepository = commentRepository;
+        this.postMapper = postMapper;
+        this.commentMapper = commentMapper;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
     }
 
     /**
@@ -54,35 +114,123 @@ public class PostServiceImpl implements PostService {
         // Create pageable instance
         Pageable pageable = PageRequest.of(pageNo, pageSize, sort);
 
-        Page<Post> posts = postRepository.findAll(pageable);
-
-        // Get content from page object
-        List<Post> postsList = posts.getContent();
+        // Page the ids only, then load these posts with their comments in a single query
+        Page<Long> postIds = postRepository.findAllIds(pageable);
 
-        List<PostDto> content = postsList.stream().map(this::mapToDTO).collect(Collectors.toList());
+        List<PostDto> content = findAllWithComments(postIds.getContent()).stream()
+                .map(this::mapToDTO)
+                .collect(Collectors.toList());
 
         PostResponse postResponse = new PostResponse();
         postResponse.setContent(content);
-        postResponse.setPageNo(posts.getNumber());
-        postResponse.setPageSize(posts.getSize());
-        postResponse.setTotalElements(posts.getTotalElements());
-        postResponse.setTotalPages(posts.getTotalPages());
-        postResponse.setLast(posts.isLast());
+        postResponse.setPageNo(postIds.getNumber());
+        postResponse.setPageSize(postIds.getSize());
+        postResponse.setTotalElements(postIds.getTotalElements());
+        postResponse.setTotalPages(postIds.getTotalPages());
+        postResponse.setLast(postIds.isLast());
 
         return postResponse;
     }
 
+    /**
+     * Get all posts as summaries, without content nor comments
+     * @return Post summaries
+     */
+    @Override
+    public PostSummaryResponse getAllPostSummaries(int pageNo, int pageSize, String sortBy, String sortDir) {
+        Sort sort = sortDir.equalsIgnoreCase(Sort.Direction.ASC.name()) ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
+
+        // Comment count is computed in the same query, comments are never loaded
+        Page<PostSummary> summaries = postRepository.findAllSummaries(PageRequest.of(pageNo, pageSize, sort));
+
+        return new PostSummaryResponse(
+                summaries.getContent(),
+                summaries.getNumber(),
+                summaries.getSize(),
+                summaries.getTotalElements(),
+                summaries.getTotalPages(),
+                summaries.isLast());
+    }
+
+    /**
+     * Get the posts following a cursor (keyset pagination, no count query)
+     * @param after Cursor returned by the previous call, empty for the first page
+     * @param pageSize Page size, at least 1
+     * @param sortBy Sort by property, ignored when a cursor is given
+     * @param sortDir Sorting direction, ignored when a cursor is given
+     * @return Posts and the cursor of the next page
+     */
+    @Override
+    public PostSliceResponse getPostsAfter(String after, int pageSize, String sortBy, String sortDir) {
+        // An empty page would have no cursor to the next one
+        if (pageSize < 1) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "pageSize must be at least 1");
+        }
+        PageCursor cursor = StringUtils.hasText(after) ? PageCursor.decode(after) : null;
+        if (cursor != null) {
+            sortBy = cursor.getSortBy();
+        }
+        Sort.Direction direction = cursor != null ? cursor.getDirection()
+                : sortDir.equalsIgnoreCase(Sort.Direction.ASC.name()) ? Sort.Direction.ASC : Sort.Direction.DESC;
+
+        if (!CURSOR_SORT_KEYS.contains(sortBy)) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Cursor pagination is not supported for sortBy=" + sortBy);
+        }
+
+        // Fetch one extra id to know if there is a next page
+        List<Long> postIds = postRepository.findIdsAfter(
+                sortBy,
+                direction,
+                cursor != null ? cursor.getValue() : null,
+                cursor != null ? cursor.getId() : null,
+                pageSize + 1);
+
+        boolean last = postIds.size() <= pageSize;
+        if (!last) {
+            postIds = postIds.subList(0, pageSize);
+        }
+        List<Post> posts = findAllWithComments(postIds);
+
+        String nextCursor = null;
+        if (!last && !posts.isEmpty()) {
+            Post lastPost = posts.get(posts.size() - 1);
+            Object lastValue = new BeanWrapperImpl(lastPost).getPropertyValue(sortBy);
+            nextCursor = new PageCursor(sortBy, direction, lastPost.getId(), String.valueOf(lastValue)).encode();
+        }
+
+        List<PostDto> content = posts.stream().map(this::mapToDTO).collect(Collectors.toList());
+
+        return new PostSliceResponse(content, pageSize, nextCursor, last);
+    }
+
     /**
      * Get a post by id
      * @param id Post id
      * @return Found post
      */
     @Override
+    @Cacheable(cacheNames = AppConstants.POSTS_CACHE, key = "#id")
     public PostDto getPostById(long id) {
-        Post post = postRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Post", "id", id));
+        // Cached value must be complete, load the comments in the same query
+        Post post = postRepository.findWithCommentsById(id).orElseThrow(() -> new ResourceNotFoundException("Post", "id", id));
         return mapToDTO(post);
     }
 
+    /**
+     * Get the ETag of a post without loading it
+     * @param id Post id
+     * @return ETag, empty if the post does not exist
+     */
+    @Override
+    public Optional<String> findPostETag(long id) {
+        // The dto embeds the comments, so their count and last update are part of the version
+        return postRepository.findVersionById(id).map(version -> ETags.of(
+                id,
+                version.getLastUpdated(),
+                version.getCommentCount(),
+                version.getCommentsLastUpdated()));
+    }
+
     /**
      * Update a post
      * @param postDto Post
@@ -90,6 +238,7 @@ public class PostServiceImpl implements PostService {
      * @return Updated post
      */
     @Override
+    @CacheEvict(cacheNames = {AppConstants.POSTS_CACHE, AppConstants.POST_PAYLOADS_CACHE}, key = "#id")
     public PostDto updatePost(PostDto postDto, long id) {
         // get post by id from the database
         Post post = postRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Post", "id", id));
@@ -107,10 +256,262 @@ public class PostServiceImpl implements PostService {
      * @param id Post id
      */
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = {AppConstants.POSTS_CACHE, AppConstants.POST_PAYLOADS_CACHE}, key = "#id"),
+            // Comments are cached by (postId, commentId), drop them all rather than listing the post comments
+            @CacheEvict(cacheNames = AppConstants.COMMENTS_CACHE, allEntries = true)
+    })
     public void deletePostById(long id) {
-        // get post by id from the database
-        Post post = postRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Post", "id", id));
-        postRepository.delete(post);
+        if (!postRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Post", "id", id);
+        }
+        deleteWithComments(List.of(id));
+    }
+
+    /**
+     * Delete posts and their comments in bulk, each chunk of AppConstants.DELETE_CHUNK_SIZE posts in one transaction
+     * @param ids Post ids, unknown ids are ignored
+     * @return Number of deleted posts
+     */
+    @Override
+    @CacheEvict(cacheNames = {AppConstants.POSTS_CACHE, AppConstants.POST_PAYLOADS_CACHE, AppConstants.COMMENTS_CACHE},
+            allEntries = true)
+    public long deletePosts(Collection<Long> ids) {
+        List<Long> postIds = List.copyOf(ids);
+
+        long deleted = 0;
+        for (int from = 0; from < postIds.size(); from += AppConstants.DELETE_CHUNK_SIZE) {
+            int to = Math.min(from + AppConstants.DELETE_CHUNK_SIZE, postIds.size());
+            deleted += deleteWithComments(postIds.subList(from, to));
+        }
+        return deleted;
+    }
+
+    /**
+     * Delete the posts created before a date and their comments in bulk, the admin purge of old posts.
+     * Posts with many comments are purged by chunks, see purge. Failing again once retried, the purge is given up:
+     * the posts left keep the comments not deleted yet, with a matching comment count, and running it again
+     * with the same date finishes it.
+     * @param createdBefore Creation date limit (excluded)
+     * @return Number of deleted posts
+     */
+    @Override
+    @Caching(evict = {
+            // A failed purge is not evicted after, the posts it deleted or recounted must not stay cached
+            @CacheEvict(cacheNames = {AppConstants.POSTS_CACHE, AppConstants.POST_PAYLOADS_CACHE,
+                    AppConstants.COMMENTS_CACHE}, allEntries = true, beforeInvocation = true),
+            @CacheEvict(cacheNames = {AppConstants.POSTS_CACHE, AppConstants.POST_PAYLOADS_CACHE,
+                    AppConstants.COMMENTS_CACHE}, allEntries = true)
+    })
+    public long deletePostsCreatedBefore(LocalDateTime createdBefore) {
+        // Deleted posts leave the result, so the first page is always the next chunk
+        Pageable chunk = PageRequest.of(0, AppConstants.DELETE_CHUNK_SIZE);
+
+        long deleted = 0;
+        List<Long> postIds;
+        do {
+            postIds = postRepository.findIdsCreatedBefore(createdBefore, chunk);
+            deleted += purgeWithRetry(postIds);
+        } while (postIds.size() == AppConstants.DELETE_CHUNK_SIZE);
+        return deleted;
+    }
+
+    /**
+     * Delete posts and their comments with set based statements instead of loading and cascading to every comment,
+     * in a single transaction: a post is either deleted with all its comments or left untouched
+     * @param postIds Post ids, at most AppConstants.DELETE_CHUNK_SIZE
+     * @return Number of deleted posts
+     */
+    private int deleteWithComments(List<Long> postIds) {
+        if (postIds.isEmpty()) {
+            return 0;
+        }
+
+        Integer deleted = transactionTemplate.execute(status -> {
+            commentRepository.deleteByPostIdIn(postIds);
+            return postRepository.deleteByIdIn(postIds);
+        });
+        return deleted != null ? deleted : 0;
+    }
+
+    /**
+     * Purge the same posts again when a purge fails, it only deletes what the failed one left
+     */
+    private int purgeWithRetry(List<Long> postIds) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return purge(postIds);
+            } catch (DataAccessException e) {
+                if (attempt == AppConstants.PURGE_ATTEMPTS) {
+                    throw e;
+                }
+                logger.warn("Purge of {} posts failed, attempt {} of {}", postIds.size(), attempt,
+                        AppConstants.PURGE_ATTEMPTS, e);
+            }
+        }
+    }
+
+    /**
+     * Delete posts whose comments are too many for one transaction: comments go first by chunks, each in its own
+     * short transaction that also recounts the comments of the posts, then the posts (with the few comments
+     * added meanwhile) in a last one. Interrupted, it leaves posts with part of their comments but a right
+     * comment count, and running it again on the same posts finishes it.
+     * @param postIds Post ids, at most AppConstants.DELETE_CHUNK_SIZE
+     * @return Number of deleted posts
+     */
+    private int purge(List<Long> postIds) {
+        if (postIds.isEmpty()) {
+            return 0;
+        }
+
+        Pageable chunk = PageRequest.of(0, AppConstants.DELETE_CHUNK_SIZE);
+        List<Long> commentIds;
+        do {
+            commentIds = commentRepository.findIdsByPostIdIn(postIds, chunk);
+            if (!commentIds.isEmpty()) {
+                List<Long> ids = commentIds;
+                transactionTemplate.executeWithoutResult(status -> {
+                    commentRepository.deleteByIdIn(ids);
+                    postRepository.recountComments(postIds);
+                });
+            }
+        } while (commentIds.size() == AppConstants.DELETE_CHUNK_SIZE);
+
+        return deleteWithComments(postIds);
+    }
+
+    /**
+     * Stream every post, without its comments, to a consumer.
+     * Posts are read through a JDBC cursor and detached once consumed, so memory stays flat whatever the table size.
+     * @param consumer Receives the posts ordered by id
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportPosts(Consumer<PostDto> consumer) {
+        try (Stream<Post> posts = postRepository.streamAll()) {
+            posts.forEach(post -> {
+                consumer.accept(postMapper.mapToDTOWithoutComments(post));
+                entityManager.detach(post);
+            });
+        }
+    }
+
+    /**
+     * Import posts and their comments with JDBC batching.
+     * Posts are read one by one and saved by chunks of batchSize, each chunk in its own transaction,
+     * so the input is never fully in memory and a failure only rolls back the current chunk.
+     * Posts and comments are checked against the constraints of POST /api/posts and POST /api/posts/{postId}/comments,
+     * an invalid post is reported and skipped with its comments.
+     * @param posts Posts to import, with their comments
+     * @param batchSize Posts per chunk, also the JDBC batch size, from 1 to AppConstants.MAX_IMPORT_BATCH_SIZE
+     * @return Imported rows, throughput and rejected posts
+     */
+    @Override
+    public PostImportReport importPosts(Iterator<PostDto> posts, int batchSize) {
+        if (batchSize < 1 || batchSize > AppConstants.MAX_IMPORT_BATCH_SIZE) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST,
+                    "batchSize must be between 1 and " + AppConstants.MAX_IMPORT_BATCH_SIZE);
+        }
+
+        long start = System.nanoTime();
+        long postCount = 0;
+        long commentCount = 0;
+        long line = 0;
+        long rejected = 0;
+        List<PostImportError> errors = new ArrayList<>();
+
+        List<PostDto> chunk = new ArrayList<>(batchSize);
+        while (posts.hasNext()) {
+            PostDto postDto = posts.next();
+            line++;
+            Map<String, String> violations = validate(postDto);
+            if (violations.isEmpty()) {
+                chunk.add(postDto);
+            } else {
+                rejected++;
+                if (errors.size() < AppConstants.MAX_IMPORT_ERRORS) {
+                    errors.add(new PostImportError(line, violations));
+                }
+            }
+            if (!chunk.isEmpty() && (chunk.size() == batchSize || !posts.hasNext())) {
+                commentCount += saveChunk(chunk, batchSize);
+                postCount += chunk.size();
+                chunk.clear();
+            }
+        }
+
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        double rowsPerSecond = (postCount + commentCount) * 1000.0 / elapsedMillis;
+
+        return new PostImportReport(postCount, commentCount, elapsedMillis, rowsPerSecond, rejected, errors);
+    }
+
+    /**
+     * Constraint violations of an imported post and of its comments
+     * @param postDto Imported post
+     * @return Message by field, empty if the post is valid
+     */
+    private Map<String, String> validate(PostDto postDto) {
+        Map<String, String> violations = new TreeMap<>();
+        validator.validate(postDto).forEach(violation ->
+                violations.put(violation.getPropertyPath().toString(), violation.getMessage()));
+        if (postDto.getComments() != null) {
+            for (CommentDto commentDto : postDto.getComments()) {
+                validator.validate(commentDto).forEach(violation ->
+                        violations.put("comments." + violation.getPropertyPath(), violation.getMessage()));
+            }
+        }
+        return violations;
+    }
+
+    /**
+     * Insert a chunk of posts and their comments in one transaction, then empty the persistence context
+     * @return Number of inserted comments
+     */
+    private long saveChunk(List<PostDto> chunk, int batchSize) {
+        Long comments = transactionTemplate.execute(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+
+            long count = 0;
+            for (PostDto postDto : chunk) {
+                Post post = mapToEntity(postDto);
+                if (postDto.getComments() != null) {
+                    for (CommentDto commentDto : postDto.getComments()) {
+                        Comment comment = commentMapper.mapToEntity(commentDto);
+                        comment.setPost(post);
+                        post.getComments().add(comment);
+                        count++;
+                    }
+                }
+                post.setCommentCount(post.getComments().size());
+                // Comments are persisted by cascade
+                entityManager.persist(post);
+            }
+
+            entityManager.flush();
+            entityManager.clear();
+            return count;
+        });
+        return comments != null ? comments : 0;
+    }
+
+    /**
+     * Load posts with their comments in one query, keeping the order of the given ids
+     * @param ids Post ids
+     * @return Posts with initialized comments
+     */
+    private List<Post> findAllWithComments(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Post> postsById = postRepository.findAllWithCommentsByIdIn(ids).stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+
+        return ids.stream()
+                .map(postsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 
     /**
@@ -119,7 +520,7 @@ public class PostServiceImpl implements PostService {
      * @return Post dto
      */
     private PostDto mapToDTO(Post post){
-        return modelMapper.map(post, PostDto.class);
+        return postMapper.mapToDTO(post);
     }
 
     /**
@@ -128,6 +529,6 @@ public class PostServiceImpl implements PostService {
      * @return Post entity
      */
     private Post mapToEntity(PostDto postDto){
-        return modelMapper.map(postDto, Post.class);
+        return postMapper.mapToEntity(postDto);
     }
 }
@@ -0,0 +1,46 @@
+package com.example.tuto.trace;
+
+import com.example.tuto.dto.SlowRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Last slow requests, in a lock-free ring buffer: each one overwrites the oldest once the buffer is full
+ */
+@Component
+public class SlowRequestLog {
+
+    private final AtomicReferenceArray<SlowRequest> requests;
+    private final AtomicLong added = new AtomicLong();
+
+    public SlowRequestLog(@Value("${app.sql-trace.capacity}") int capacity) {
+        this.requests = new AtomicReferenceArray<>(capacity);
+    }
+
+    public void add(SlowRequest request) {
+        long sequence = added.getAndIncrement();
+        requests.set((int) (sequence % requests.length()), request);
+    }
+
+    /**
+     * @return Slow requests kept, most recent first
+     */
+    public List<SlowRequest> recent() {
+        long last = added.get();
+        long first = Math.max(0, last - requests.length());
+        List<SlowRequest> recent = new ArrayList<>((int) (last - first));
+        for (long sequence = last - 1; sequence >= first; sequence--) {
+            SlowRequest request = requests.get((int) (sequence % requests.length()));
+            // Null while a concurrent add has reserved the slot but not written it yet
+            if (request != null) {
+                recent.add(request);
+            }
+        }
+        return recent;
+    }
+}
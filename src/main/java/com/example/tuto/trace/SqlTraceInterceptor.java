@@ -0,0 +1,67 @@
+package com.example.tuto.trace;
+
+import com.example.tuto.controller.CommentController;
+import com.example.tuto.controller.PostController;
+import com.example.tuto.metrics.RequestEndpoint;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Record the statements of the requests handled by PostController and CommentController,
+ * and keep those over the threshold in the SlowRequestLog
+ */
+public class SqlTraceInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Set<Class<?>> TRACED_CONTROLLERS = Set.of(PostController.class, CommentController.class);
+
+    private final SlowRequestLog slowRequestLog;
+    private final long thresholdNanos;
+    private final int maxStatements;
+
+    public SqlTraceInterceptor(SlowRequestLog slowRequestLog, Duration threshold, int maxStatements) {
+        this.slowRequestLog = slowRequestLog;
+        this.thresholdNanos = threshold.toNanos();
+        this.maxStatements = maxStatements;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod && TRACED_CONTROLLERS.contains(handlerMethod.getBeanType())) {
+            SqlTraceRecorder.start(maxStatements);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        SqlTraceRecorder recorder = SqlTraceRecorder.active();
+        if (recorder == null) {
+            return;
+        }
+        long elapsed = recorder.stop();
+        if (elapsed >= thresholdNanos) {
+            String uri = request.getQueryString() != null
+                    ? request.getRequestURI() + "?" + request.getQueryString()
+                    : request.getRequestURI();
+            slowRequestLog.add(recorder.toSlowRequest(RequestEndpoint.of(request), uri, response.getStatus(), elapsed));
+        }
+        recorder.release();
+    }
+
+    /**
+     * Streamed responses (posts export) go on in another thread, their statements are not traced
+     */
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        SqlTraceRecorder recorder = SqlTraceRecorder.active();
+        if (recorder != null) {
+            recorder.stop();
+            recorder.release();
+        }
+    }
+}
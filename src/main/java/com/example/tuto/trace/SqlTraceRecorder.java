@@ -0,0 +1,135 @@
+package com.example.tuto.trace;
+
+import com.example.tuto.dto.SlowRequest;
+import com.example.tuto.dto.SqlStatementTrace;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Statements run by the request handled by the current thread.
+ * Recorders are pooled rather than kept per thread: a virtual thread runs a single request, a recorder per thread
+ * would allocate its four arrays for every request. A request takes a recorder at start and gives it back
+ * at release, so the arrays are only allocated while the pool warms up. Recording copies nothing, the sql strings
+ * are kept by reference and only copied into a SlowRequest when the request goes over the threshold.
+ * The connection, statement and result set proxies of SqlTracingDataSource are still allocated per request.
+ */
+public class SqlTraceRecorder {
+
+    // Recorders kept for the next requests, the ones released when it is full are left to the garbage collector
+    private static final int POOL_CAPACITY = 256;
+
+    private static final ThreadLocal<SqlTraceRecorder> RECORDERS = new ThreadLocal<>();
+    private static final BlockingQueue<SqlTraceRecorder> POOL = new ArrayBlockingQueue<>(POOL_CAPACITY);
+
+    private final String[] sql;
+    private final int[] binds;
+    private final long[] nanos;
+    private final long[] rows;
+    private int count;
+    private int dropped;
+    // Incremented by each request, result sets read after their request ended are ignored
+    private long generation;
+    private boolean active;
+    private long startMillis;
+    private long startNanos;
+
+    private SqlTraceRecorder(int maxStatements) {
+        this.sql = new String[maxStatements];
+        this.binds = new int[maxStatements];
+        this.nanos = new long[maxStatements];
+        this.rows = new long[maxStatements];
+    }
+
+    /**
+     * Start recording the statements of the current thread, with a recorder taken from the pool
+     * @param maxStatements Statements kept per request, the next ones are only counted
+     */
+    static void start(int maxStatements) {
+        SqlTraceRecorder recorder = RECORDERS.get();
+        if (recorder == null) {
+            recorder = POOL.poll();
+        }
+        if (recorder == null || recorder.sql.length != maxStatements) {
+            recorder = new SqlTraceRecorder(maxStatements);
+        }
+        RECORDERS.set(recorder);
+        recorder.count = 0;
+        recorder.dropped = 0;
+        recorder.generation++;
+        recorder.active = true;
+        recorder.startMillis = System.currentTimeMillis();
+        recorder.startNanos = System.nanoTime();
+    }
+
+    /**
+     * @return Recorder of the current thread if a traced request is running, else null
+     */
+    static SqlTraceRecorder active() {
+        SqlTraceRecorder recorder = RECORDERS.get();
+        return recorder != null && recorder.active ? recorder : null;
+    }
+
+    /**
+     * Stop recording
+     * @return Time since start, in nanoseconds
+     */
+    long stop() {
+        active = false;
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Drop the references to the sql of the last request and give the recorder back to the pool.
+     * Result sets of the request still open are ignored, the next request starts a new generation.
+     */
+    void release() {
+        Arrays.fill(sql, 0, count, null);
+        count = 0;
+        RECORDERS.remove();
+        POOL.offer(this);
+    }
+
+    /**
+     * @return Index of the statement, -1 if over the maximum
+     */
+    int record(String statementSql, int statementBinds, long statementNanos, long statementRows) {
+        if (count == sql.length) {
+            dropped++;
+            return -1;
+        }
+        sql[count] = statementSql;
+        binds[count] = statementBinds;
+        nanos[count] = statementNanos;
+        rows[count] = statementRows;
+        return count++;
+    }
+
+    long generation() {
+        return generation;
+    }
+
+    void rowRead(int index, long statementGeneration) {
+        if (active && index >= 0 && statementGeneration == generation) {
+            rows[index]++;
+        }
+    }
+
+    SlowRequest toSlowRequest(String endpoint, String uri, int status, long durationNanos) {
+        List<SqlStatementTrace> statements = new ArrayList<>(count);
+        long sqlNanos = 0;
+        for (int i = 0; i < count; i++) {
+            statements.add(new SqlStatementTrace(sql[i], binds[i], nanos[i] / 1_000_000.0, rows[i]));
+            sqlNanos += nanos[i];
+        }
+        LocalDateTime startedAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(startMillis), ZoneId.systemDefault());
+        return new SlowRequest(startedAt, endpoint, uri, status, durationNanos / 1_000_000.0, sqlNanos / 1_000_000.0,
+                count + dropped, statements);
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.tuto.trace;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Data source recording the statements of traced requests into their SqlTraceRecorder: sql, bind count,
+ * execution time and rows read or updated.
+ * Only the connections taken while a traced request is running are wrapped, the others are returned as they are.
+ */
+public class SqlTracingDataSource extends DelegatingDataSource {
+
+    public SqlTracingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return trace(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return trace(super.getConnection(username, password));
+    }
+
+    private static Connection trace(Connection connection) {
+        if (SqlTraceRecorder.active() == null) {
+            return connection;
+        }
+        return proxy(Connection.class, new ConnectionHandler(connection));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(SqlTracingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private record ConnectionHandler(Connection connection) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "prepareStatement" -> proxy(PreparedStatement.class,
+                        new StatementHandler((Statement) SqlTracingDataSource.invoke(connection, method, args), (String) args[0]));
+                case "prepareCall" -> proxy(CallableStatement.class,
+                        new StatementHandler((Statement) SqlTracingDataSource.invoke(connection, method, args), (String) args[0]));
+                case "createStatement" -> proxy(Statement.class,
+                        new StatementHandler((Statement) SqlTracingDataSource.invoke(connection, method, args), null));
+                default -> SqlTracingDataSource.invoke(connection, method, args);
+            };
+        }
+    }
+
+    private static class StatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+        // Sql of a prepared statement, null for a plain statement which gets it at execution
+        private final String sql;
+        private int binds;
+
+        StatementHandler(Statement statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(method, args);
+            }
+            if (name.startsWith("set") && method.getDeclaringClass() != Statement.class) {
+                // Parameter of a prepared or callable statement, not a setting of the statement (fetch size...)
+                binds++;
+            }
+            return switch (name) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> SqlTracingDataSource.invoke(statement, method, args);
+            };
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            SqlTraceRecorder recorder = SqlTraceRecorder.active();
+            if (recorder == null) {
+                return SqlTracingDataSource.invoke(statement, method, args);
+            }
+
+            String statementSql = sql != null ? sql : (String) args[0];
+            int statementBinds = binds;
+            binds = 0;
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = SqlTracingDataSource.invoke(statement, method, args);
+            } catch (Throwable e) {
+                recorder.record(statementSql, statementBinds, System.nanoTime() - start, -1);
+                throw e;
+            }
+            long elapsed = System.nanoTime() - start;
+
+            if (result instanceof ResultSet resultSet) {
+                // Rows are counted as they are read
+                int index = recorder.record(statementSql, statementBinds, elapsed, 0);
+                return proxy(ResultSet.class, new ResultSetHandler(resultSet, recorder, index, recorder.generation()));
+            }
+            recorder.record(statementSql, statementBinds, elapsed, updatedRows(result));
+            return result;
+        }
+
+        private static long updatedRows(Object result) {
+            if (result instanceof Number updated) {
+                return updated.longValue();
+            }
+            if (result instanceof int[] batch) {
+                long rows = 0;
+                for (int updated : batch) {
+                    rows += updated;
+                }
+                return rows;
+            }
+            if (result instanceof long[] batch) {
+                long rows = 0;
+                for (long updated : batch) {
+                    rows += updated;
+                }
+                return rows;
+            }
+            // execute(): true for a result set, not read through this statement
+            return -1;
+        }
+    }
+
+    private record ResultSetHandler(ResultSet resultSet, SqlTraceRecorder recorder, int index, long generation)
+            implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "next" -> {
+                    Object hasRow = SqlTracingDataSource.invoke(resultSet, method, args);
+                    if (Boolean.TRUE.equals(hasRow)) {
+                        recorder.rowRead(index, generation);
+                    }
+                    yield hasRow;
+                }
+                default -> SqlTracingDataSource.invoke(resultSet, method, args);
+            };
+        }
+    }
+}
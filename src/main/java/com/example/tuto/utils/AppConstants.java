@@ -6,6 +6,34 @@ public class AppConstants {
     public static final String DEFAULT_PAGE_SIZE = "10";
     public static final String DEFAULT_SORT_BY = "id";
     public static final String DEFAULT_SORT_DIRECTION = "asc";
+
+    public static final String DEFAULT_COMMENT_PAGE_SIZE = "20";
+    public static final int MAX_COMMENT_PAGE_SIZE = 100;
+
+    // Ids reserved per sequence round trip (posts and comments)
+    public static final int ID_ALLOCATION_SIZE = 50;
+    public static final String DEFAULT_IMPORT_BATCH_SIZE = "500";
+    public static final int MAX_IMPORT_BATCH_SIZE = 5000;
+    // Invalid posts detailed in an import report, the others are only counted
+    public static final int MAX_IMPORT_ERRORS = 100;
+
+    // Rows per statement when deleting posts and their comments in bulk
+    public static final int DELETE_CHUNK_SIZE = 1000;
+    // Attempts of a chunk of the old posts purge before it is given up
+    public static final int PURGE_ATTEMPTS = 3;
+
+    // Posts recounted per update by the comment count reconciliation
+    public static final int RECONCILE_CHUNK_SIZE = 1000;
+
+    public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
+    // Rows per JDBC round trip when streaming the posts export
+    public static final String EXPORT_FETCH_SIZE = "500";
+
+    public static final String POSTS_CACHE = "posts";
+    public static final String COMMENTS_CACHE = "comments";
+    public static final String POST_PAYLOADS_CACHE = "postPayloads";
+    public static final String USER_DETAILS_CACHE = "userDetails";
 }
 
 
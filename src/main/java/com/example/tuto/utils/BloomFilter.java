@@ -0,0 +1,75 @@
+package com.example.tuto.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Set of strings answering "maybe present" or "definitely absent" in a few bits per element.
+ * False positives happen with the probability the filter was sized for, false negatives never.
+ * Elements cannot be removed. Safe for concurrent use.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions Number of elements the filter is sized for, more raise the false positive rate
+     * @param falsePositiveProbability Wanted false positive probability at expectedInsertions, between 0 and 1
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        this.bits = new AtomicLongArray(Math.toIntExact((m + 63) / 64));
+        this.bitCount = bits.length() * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    public void put(String element) {
+        long hash = hash(element);
+        long h1 = mix(hash);
+        long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current;
+            while (((current = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                // Another bit of the word was set concurrently, retry
+            }
+        }
+    }
+
+    public boolean mightContain(String element) {
+        long hash = hash(element);
+        long h1 = mix(hash);
+        long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 64 bits FNV-1a over the UTF-16 chars
+     */
+    private static long hash(String element) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < element.length(); i++) {
+            hash = (hash ^ element.charAt(i)) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Murmur3 finalizer, spreads the FNV bits over the whole long
+     */
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.tuto.utils;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+public class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * Build a strong ETag from the values a representation depends on
+     * @param parts Id, timestamps...
+     * @return Quoted ETag
+     */
+    public static String of(Object... parts) {
+        String version = Arrays.stream(parts).map(String::valueOf).collect(Collectors.joining("|"));
+        return "\"" + DigestUtils.md5DigestAsHex(version.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Weaken an ETag, for representations sent with several content codings: a strong ETag must differ
+     * between the gzip and identity bodies (RFC 9110 8.8.3), a weak one is shared by both
+     * @param eTag Quoted strong ETag
+     * @return Weak ETag
+     */
+    public static String weak(String eTag) {
+        return "W/" + eTag;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.tuto.utils;
+
+import com.example.tuto.exception.BlogAPIException;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token for keyset pagination.
+ * Encodes the sort key, the sort direction and the position (sort value + id) of the last returned row.
+ */
+public class PageCursor {
+
+    private static final String SEPARATOR = "\n";
+
+    private final String sortBy;
+    private final Sort.Direction direction;
+    private final long id;
+    private final String value;
+
+    public PageCursor(String sortBy, Sort.Direction direction, long id, String value) {
+        this.sortBy = sortBy;
+        this.direction = direction;
+        this.id = id;
+        this.value = value;
+    }
+
+    public String getSortBy() {
+        return sortBy;
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Encode the cursor into an url safe token
+     * @return Token
+     */
+    public String encode() {
+        String raw = sortBy + SEPARATOR + direction.name() + SEPARATOR + id + SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token produced by {@link #encode()}
+     * @param token Token
+     * @return Cursor
+     */
+    public static PageCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, 4);
+            if (parts.length != 4) {
+                throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+            return new PageCursor(parts[0], Sort.Direction.fromString(parts[1]), Long.parseLong(parts[2]), parts[3]);
+        } catch (IllegalArgumentException ex) {
+            throw new BlogAPIException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.tuto.cache;
+
+import com.example.tuto.dto.PostDto;
+import com.example.tuto.exception.ResourceNotFoundException;
+import com.example.tuto.utils.AppConstants;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostPayloadCacheTest {
+
+    private Cache cache;
+    private PostPayloadCache postPayloadCache;
+
+    @BeforeEach
+    void setUp() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(AppConstants.POST_PAYLOADS_CACHE);
+        cache = cacheManager.getCache(AppConstants.POST_PAYLOADS_CACHE);
+        postPayloadCache = new PostPayloadCache(cacheManager, new ObjectMapper());
+    }
+
+    @Test
+    void evictionDuringALoadRemovesTheLoadedPayload() throws InterruptedException {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Loads the post before it is updated
+        Thread load = Thread.ofVirtual().start(() -> postPayloadCache.get(1L, () -> {
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return newPostDto("Title before the update");
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        // The update evicts the post while it is loading
+        Thread evict = Thread.ofVirtual().start(() -> cache.evict(1L));
+        evict.join(100);
+        release.countDown();
+        load.join();
+        evict.join();
+
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void loaderErrorsAreThrownAsTheyAre() {
+        assertThrows(ResourceNotFoundException.class, () -> postPayloadCache.get(1L, () -> {
+            throw new ResourceNotFoundException("Post", "id", 1L);
+        }));
+        assertNull(cache.get(1L));
+    }
+
+    private static PostDto newPostDto(String title) {
+        PostDto postDto = new PostDto();
+        postDto.setId(1L);
+        postDto.setTitle(title);
+        postDto.setDescription("Description of the cached post");
+        postDto.setContent("Content of the cached post");
+        return postDto;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.tuto.controller;
+
+import com.example.tuto.entity.Post;
+import com.example.tuto.entity.Role;
+import com.example.tuto.entity.User;
+import com.example.tuto.repository.CommentRepository;
+import com.example.tuto.repository.PostRepository;
+import com.example.tuto.repository.RoleRepository;
+import com.example.tuto.repository.UserRepository;
+import com.example.tuto.security.JwtTokenProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Every traced request is slow
+@SpringBootTest(properties = "app.sql-trace.threshold=0ms")
+@AutoConfigureMockMvc
+class AdminControllerTest {
+
+    private static final String ADMIN_EMAIL = "slow.requests.admin@mail.com";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Post post;
+
+    @BeforeEach
+    void setUp() {
+        commentRepository.deleteAllInBatch();
+        postRepository.deleteAllInBatch();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+        Post newPost = new Post();
+        newPost.setTitle("Traced post");
+        newPost.setDescription("Post read by the slow requests test");
+        newPost.setContent("Content of the traced post");
+        post = postRepository.save(newPost);
+
+        // In one transaction, so that the user references the managed role
+        transactionTemplate.executeWithoutResult(status -> {
+            if (userRepository.findByEmail(ADMIN_EMAIL).isPresent()) {
+                return;
+            }
+            Role role = roleRepository.findByName("ROLE_ADMIN").orElseGet(() -> {
+                Role adminRole = new Role();
+                adminRole.setName("ROLE_ADMIN");
+                return roleRepository.save(adminRole);
+            });
+            User admin = new User();
+            admin.setName("Admin");
+            admin.setUsername("slow.requests.admin");
+            admin.setEmail(ADMIN_EMAIL);
+            admin.setPassword("hash of " + ADMIN_EMAIL);
+            admin.setRoles(Set.of(role));
+            userRepository.save(admin);
+        });
+    }
+
+    @Test
+    void slowRequestsListTracedRequestsWithTheirStatements() throws Exception {
+        mockMvc.perform(get("/api/posts/{id}", post.getId()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/admin/slow-requests").header(HttpHeaders.AUTHORIZATION, bearer(ADMIN_EMAIL, "ROLE_ADMIN")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].endpoint").value("GET /api/posts/{id}"))
+                .andExpect(jsonPath("$[0].uri").value("/api/posts/" + post.getId()))
+                .andExpect(jsonPath("$[0].status").value(200))
+                .andExpect(jsonPath("$[0].statements[0].sql").value(containsString("posts")));
+    }
+
+    @Test
+    void slowRequestsAreForAdminsOnly() throws Exception {
+        // Access denied, GlobalExceptionHandler answers 401
+        mockMvc.perform(get("/api/admin/slow-requests").header(HttpHeaders.AUTHORIZATION, bearer("reader@mail.com", "ROLE_USER")))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private String bearer(String username, String role) {
+        return "Bearer " + jwtTokenProvider.generateToken(new UsernamePasswordAuthenticationToken(
+                username, null, List.of(new SimpleGrantedAuthority(role))));
+    }
+}
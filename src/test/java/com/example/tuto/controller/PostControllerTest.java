@@ -0,0 +1,77 @@
+package com.example.tuto.controller;
+
+import com.example.tuto.entity.Comment;
+import com.example.tuto.entity.Post;
+import com.example.tuto.repository.CommentRepository;
+import com.example.tuto.repository.PostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class PostControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Post post;
+
+    @BeforeEach
+    void setUp() {
+        commentRepository.deleteAllInBatch();
+        postRepository.deleteAllInBatch();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+        Post newPost = new Post();
+        newPost.setTitle("Post sent gzipped");
+        newPost.setDescription("Post large enough to be gzipped");
+        newPost.setContent("Content of the post. ".repeat(10));
+        post = postRepository.save(newPost);
+
+        // Over the gzip threshold of PostPayloadCache with its comments
+        for (int i = 0; i < 10; i++) {
+            Comment comment = new Comment();
+            comment.setName("Reader " + i);
+            comment.setEmail("reader" + i + "@mail.com");
+            comment.setBody("Comment of the post. ".repeat(8));
+            comment.setPost(post);
+            commentRepository.save(comment);
+        }
+        postRepository.adjustCommentCount(post.getId(), 10);
+    }
+
+    @Test
+    void gzipAndIdentityBodiesShareAWeakETag() throws Exception {
+        String gzipETag = mockMvc.perform(get("/api/posts/{id}", post.getId()).header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String identityETag = mockMvc.perform(get("/api/posts/{id}", post.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertTrue(gzipETag.startsWith("W/\""), gzipETag);
+        assertEquals(gzipETag, identityETag);
+        mockMvc.perform(get("/api/posts/{id}", post.getId()).header(HttpHeaders.IF_NONE_MATCH, gzipETag))
+                .andExpect(status().isNotModified());
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.tuto.job;
+
+import com.example.tuto.entity.Post;
+import com.example.tuto.repository.CommentRepository;
+import com.example.tuto.repository.PostRepository;
+import com.example.tuto.utils.AppConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+class CommentCountReconciliationJobTest {
+
+    @Autowired
+    private CommentCountReconciliationJob job;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Post post;
+
+    @BeforeEach
+    void setUp() {
+        commentRepository.deleteAllInBatch();
+        postRepository.deleteAllInBatch();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+        Post newPost = new Post();
+        newPost.setTitle("Reconciled post");
+        newPost.setDescription("Post with a drifted comment count");
+        newPost.setContent("Content of the reconciled post");
+        post = postRepository.save(newPost);
+    }
+
+    @Test
+    void repairEvictsTheCachedPosts() {
+        postRepository.adjustCommentCount(post.getId(), 3);
+        Cache posts = cacheManager.getCache(AppConstants.POSTS_CACHE);
+        Cache payloads = cacheManager.getCache(AppConstants.POST_PAYLOADS_CACHE);
+        posts.put(post.getId(), "post with the drifted count");
+        payloads.put(post.getId(), "payload with the drifted count");
+
+        assertEquals(1, job.reconcile());
+
+        assertEquals(0, postRepository.findById(post.getId()).orElseThrow().getCommentCount());
+        assertNull(posts.get(post.getId()));
+        assertNull(payloads.get(post.getId()));
+    }
+
+    @Test
+    void nothingToRepairKeepsTheCache() {
+        Cache posts = cacheManager.getCache(AppConstants.POSTS_CACHE);
+        posts.put(post.getId(), "post with the right count");
+
+        assertEquals(0, job.reconcile());
+
+        assertNotNull(posts.get(post.getId()));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.tuto.metrics;
+
+import com.example.tuto.entity.Role;
+import com.example.tuto.entity.User;
+import com.example.tuto.repository.RoleRepository;
+import com.example.tuto.repository.UserRepository;
+import com.example.tuto.security.JwtTokenProvider;
+import com.example.tuto.utils.AppConstants;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class LayerMetricsAspectTest {
+
+    private static final String ADMIN_EMAIL = "admin@mail.com";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        roleRepository.deleteAll();
+        cacheManager.getCache(AppConstants.USER_DETAILS_CACHE).clear();
+        meterRegistry.find(LayerMetricsAspect.TIMER).timers().forEach(meterRegistry::remove);
+    }
+
+    @Test
+    void userLookupOfTheFilterChainIsTaggedWithTheRoutePattern() throws Exception {
+        Role role = new Role();
+        role.setName("ROLE_ADMIN");
+        User admin = new User();
+        admin.setName("Admin");
+        admin.setUsername("admin");
+        admin.setEmail(ADMIN_EMAIL);
+        admin.setPassword("hash of " + ADMIN_EMAIL);
+        admin.setRoles(Set.of(role));
+        userRepository.save(admin);
+        String token = "Bearer " + jwtTokenProvider.generateToken(new UsernamePasswordAuthenticationToken(
+                ADMIN_EMAIL, null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+
+        // The handler is still resolved by the dispatcher servlet: no such post
+        mockMvc.perform(delete("/api/posts/{id}", 42).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isNotFound());
+
+        assertNotNull(securityTimer("loadUserByUsername", "DELETE /api/posts/{id}"));
+    }
+
+    @Test
+    void userLookupOfAnUnmappedUriIsNotTaggedWithTheUri() throws Exception {
+        String token = "Bearer " + jwtTokenProvider.generateToken(new UsernamePasswordAuthenticationToken(
+                ADMIN_EMAIL, null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+
+        mockMvc.perform(delete("/api/unknown/{id}", 42).header(HttpHeaders.AUTHORIZATION, token));
+
+        assertNotNull(securityTimer("loadUserByUsername", RequestEndpoint.NONE));
+    }
+
+    private Timer securityTimer(String method, String endpoint) {
+        return meterRegistry.find(LayerMetricsAspect.TIMER)
+                .tag("layer", "security")
+                .tag("method", method)
+                .tag("endpoint", endpoint)
+                .timer();
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.tuto.security;
+
+import com.example.tuto.entity.Role;
+import com.example.tuto.entity.User;
+import com.example.tuto.repository.RoleRepository;
+import com.example.tuto.repository.UserRepository;
+import com.example.tuto.utils.AppConstants;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcBuilderCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class JwtAuthenticationFilterTest {
+
+    private static final String ADMIN_EMAIL = "admin@mail.com";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private CacheManager cacheManager;
+    @SpyBean
+    private CustomUserDetailsService userDetailsService;
+    @Value("${app.jwt-secret}")
+    private String jwtSecret;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        roleRepository.deleteAll();
+        cacheManager.getCache(AppConstants.USER_DETAILS_CACHE).clear();
+    }
+
+    @Test
+    void revokedAdminIsRejectedOnceTheUserDetailsCacheExpires() throws Exception {
+        // Roles are created with the user, through the cascade
+        User admin = userRepository.save(newUser(ADMIN_EMAIL, Set.of(newRole("ROLE_USER"), newRole("ROLE_ADMIN"))));
+        String token = bearer(ADMIN_EMAIL, "ROLE_USER", "ROLE_ADMIN");
+
+        mockMvc.perform(get("/api/admin/slow-requests").header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk());
+
+        admin.setRoles(admin.getRoles().stream()
+                .filter(role -> !"ROLE_ADMIN".equals(role.getName()))
+                .collect(Collectors.toSet()));
+        userRepository.save(admin);
+        // What the expiration of app.cache.user-details.spec does
+        cacheManager.getCache(AppConstants.USER_DETAILS_CACHE).clear();
+
+        // Access denied, GlobalExceptionHandler answers 401
+        mockMvc.perform(get("/api/admin/slow-requests").header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void publicReadWithInvalidTokenSucceedsWithoutUserLookup() throws Exception {
+        String expiredToken = Jwts.builder()
+                .setSubject(ADMIN_EMAIL)
+                .claim(JwtTokenProvider.ROLES_CLAIM, List.of("ROLE_USER"))
+                .setExpiration(new Date(System.currentTimeMillis() - 60_000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret)))
+                .compact();
+
+        for (String token : List.of("Bearer " + expiredToken, "Bearer not.a.token", bearer(ADMIN_EMAIL, "ROLE_ADMIN"))) {
+            mockMvc.perform(get("/api/posts").header(HttpHeaders.AUTHORIZATION, token))
+                    .andExpect(status().isOk());
+        }
+
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    /**
+     * What spring.mvc.publish-request-handled-events=false does to the real dispatcher servlet, MockMvc ignores it.
+     * The event names the user of the request, so it would resolve the authentication of every request.
+     */
+    @TestConfiguration
+    static class MockMvcConfig {
+
+        @Bean
+        MockMvcBuilderCustomizer noRequestHandledEvents() {
+            return builder -> builder.addDispatcherServletCustomizer(servlet -> servlet.setPublishEvents(false));
+        }
+    }
+
+    private String bearer(String username, String... roles) {
+        List<SimpleGrantedAuthority> authorities = Arrays.stream(roles).map(SimpleGrantedAuthority::new).toList();
+        return "Bearer " + jwtTokenProvider.generateToken(new UsernamePasswordAuthenticationToken(username, null, authorities));
+    }
+
+    private static Role newRole(String name) {
+        Role role = new Role();
+        role.setName(name);
+        return role;
+    }
+
+    private static User newUser(String email, Set<Role> roles) {
+        User user = new User();
+        user.setName("Admin");
+        user.setUsername(email.substring(0, email.indexOf('@')));
+        user.setEmail(email);
+        user.setPassword("hash of " + email);
+        user.setRoles(roles);
+        return user;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.tuto.security;
+
+import com.example.tuto.exception.BlogAPIException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.security.Key;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtTokenProviderTest {
+
+    private static final String SECRET = "daf66e01593f61a15b857cf433aae03a005812b31234e149036bcc8dee755dbb";
+    private static final long EXPIRATION = 604800000L;
+
+    private final JwtTokenProvider tokenProvider = new JwtTokenProvider(SECRET, EXPIRATION, 100);
+    private final Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+
+    @Test
+    void prematureTokenIsBadRequest() {
+        String token = Jwts.builder()
+                .setSubject("user@mail.com")
+                .setNotBefore(new Date(System.currentTimeMillis() + EXPIRATION))
+                .setExpiration(new Date(System.currentTimeMillis() + 2 * EXPIRATION))
+                .signWith(key)
+                .compact();
+
+        BlogAPIException exception = assertThrows(BlogAPIException.class, () -> tokenProvider.parseClaims(token));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    }
+
+    @Test
+    void rolesClaimThatIsNotAListIsBadRequest() {
+        String token = Jwts.builder()
+                .setSubject("user@mail.com")
+                .claim(JwtTokenProvider.ROLES_CLAIM, "ROLE_ADMIN")
+                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION))
+                .signWith(key)
+                .compact();
+        Claims claims = tokenProvider.parseClaims(token);
+
+        BlogAPIException exception = assertThrows(BlogAPIException.class, () -> tokenProvider.getAuthorities(claims));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    }
+}
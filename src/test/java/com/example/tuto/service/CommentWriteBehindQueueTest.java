@@ -0,0 +1,222 @@
+package com.example.tuto.service;
+
+import com.example.tuto.dto.CommentDto;
+import com.example.tuto.entity.Post;
+import com.example.tuto.exception.BlogAPIException;
+import com.example.tuto.mapper.CommentMapper;
+import com.example.tuto.repository.CommentRepository;
+import com.example.tuto.repository.PostRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class CommentWriteBehindQueueTest {
+
+    // Longer than any test waits for a flush, stopping the queue takes up to one interval
+    private static final Duration LONG_INTERVAL = Duration.ofSeconds(3);
+
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private CommentMapper commentMapper;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private CacheManager cacheManager;
+
+    private ControlledTransactionTemplate transactionTemplate;
+    private CommentWriteBehindQueue queue;
+    private Post post;
+
+    @BeforeEach
+    void setUp() {
+        commentRepository.deleteAllInBatch();
+        postRepository.deleteAllInBatch();
+        post = postRepository.save(newPost());
+        transactionTemplate = new ControlledTransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.release.countDown();
+        if (queue != null && queue.isRunning()) {
+            queue.stop();
+        }
+    }
+
+    @Test
+    void fullQueueIsServiceUnavailable() throws InterruptedException {
+        queue = start(1, 1, LONG_INTERVAL);
+        transactionTemplate.blockFlushes();
+
+        // The flusher takes the first comment and blocks, the second one fills the queue
+        queue.submit(post.getId(), newCommentDto("First comment"));
+        assertTrue(transactionTemplate.flushing.await(5, TimeUnit.SECONDS));
+        queue.submit(post.getId(), newCommentDto("Second comment"));
+        BlogAPIException exception = assertThrows(BlogAPIException.class,
+                () -> queue.submit(post.getId(), newCommentDto("Rejected comment")));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+        transactionTemplate.release.countDown();
+        awaitComments(2);
+    }
+
+    @Test
+    void fullBatchIsFlushedBeforeTheInterval() throws InterruptedException {
+        queue = start(100, 3, LONG_INTERVAL);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < 3; i++) {
+            queue.submit(post.getId(), newCommentDto("Comment number " + i));
+        }
+
+        awaitComments(3);
+        assertTrue(System.nanoTime() - start < LONG_INTERVAL.toNanos());
+        assertEquals(1, transactionTemplate.executions.get());
+        assertEquals(3, commentCount());
+    }
+
+    @Test
+    void partialBatchIsFlushedAfterTheInterval() throws InterruptedException {
+        queue = start(100, 100, Duration.ofMillis(200));
+
+        queue.submit(post.getId(), newCommentDto("Lonely comment"));
+
+        awaitComments(1);
+        assertEquals(1, commentCount());
+    }
+
+    @Test
+    void stopDrainsQueuedComments() {
+        queue = start(100, 100, LONG_INTERVAL);
+        for (int i = 0; i < 5; i++) {
+            queue.submit(post.getId(), newCommentDto("Comment number " + i));
+        }
+
+        queue.stop();
+
+        assertEquals(5, commentRepository.count());
+        assertThrows(BlogAPIException.class, () -> queue.submit(post.getId(), newCommentDto("Too late comment")));
+    }
+
+    @Test
+    void failedBatchIsRetried() throws InterruptedException {
+        queue = start(100, 3, LONG_INTERVAL);
+        transactionTemplate.failures.set(2);
+
+        for (int i = 0; i < 3; i++) {
+            queue.submit(post.getId(), newCommentDto("Comment number " + i));
+        }
+
+        awaitComments(3);
+        assertEquals(3, commentCount());
+    }
+
+    @Test
+    void commentThatCanNotBeSavedIsIsolated() throws InterruptedException {
+        queue = start(100, 3, LONG_INTERVAL);
+
+        queue.submit(post.getId(), newCommentDto("First comment"));
+        // Longer than the body column
+        queue.submit(post.getId(), newCommentDto("x".repeat(1000)));
+        queue.submit(post.getId(), newCommentDto("Last comment"));
+
+        awaitComments(2);
+        queue.stop();
+        assertEquals(2, commentRepository.count());
+        assertEquals(2, commentCount());
+    }
+
+    private CommentWriteBehindQueue start(int queueCapacity, int batchSize, Duration flushInterval) {
+        CommentWriteBehindQueue started = new CommentWriteBehindQueue(queueCapacity, batchSize, flushInterval,
+                3, Duration.ofMillis(10), postRepository, commentMapper, entityManager, transactionTemplate, cacheManager);
+        started.start();
+        return started;
+    }
+
+    private void awaitComments(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (commentRepository.count() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, commentRepository.count());
+    }
+
+    private long commentCount() {
+        return postRepository.findById(post.getId()).orElseThrow().getCommentCount();
+    }
+
+    private static Post newPost() {
+        Post post = new Post();
+        post.setTitle("Write-behind post");
+        post.setDescription("Post description");
+        post.setContent("Post content");
+        return post;
+    }
+
+    private static CommentDto newCommentDto(String body) {
+        CommentDto commentDto = new CommentDto();
+        commentDto.setName("Name");
+        commentDto.setEmail("name@mail.com");
+        commentDto.setBody(body);
+        return commentDto;
+    }
+
+    /**
+     * Transactions of the flusher, which the tests can block or make fail
+     */
+    private static class ControlledTransactionTemplate extends TransactionTemplate {
+
+        private final CountDownLatch flushing = new CountDownLatch(1);
+        private volatile CountDownLatch release = new CountDownLatch(0);
+        private final AtomicInteger failures = new AtomicInteger();
+        private final AtomicInteger executions = new AtomicInteger();
+
+        ControlledTransactionTemplate(PlatformTransactionManager transactionManager) {
+            super(transactionManager);
+        }
+
+        void blockFlushes() {
+            release = new CountDownLatch(1);
+        }
+
+        @Override
+        public <T> T execute(TransactionCallback<T> action) throws TransactionException {
+            flushing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            executions.incrementAndGet();
+            if (failures.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+                throw new TransientDataAccessResourceException("Database unavailable");
+            }
+            return super.execute(action);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.tuto.service;
+
+import com.example.tuto.dto.UserIdentity;
+import com.example.tuto.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RegisteredUsersIndexTest {
+
+    private RegisteredUsersIndex index;
+
+    @BeforeEach
+    void setUp() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.streamIdentities()).thenReturn(Stream.of(identity("Alice", "Alice@Mail.com")));
+        index = new RegisteredUsersIndex(userRepository, 1000, 0.01);
+    }
+
+    @Test
+    void everyNameIsMaybeTakenUntilTheScanIsDone() {
+        assertTrue(index.mightHaveUsername("nobody"));
+        assertTrue(index.mightHaveEmail("nobody@mail.com"));
+    }
+
+    @Test
+    void scannedNamesAreFoundWhateverTheirCase() {
+        index.run(null);
+
+        assertTrue(index.mightHaveUsername("alice"));
+        assertTrue(index.mightHaveUsername("ALICE"));
+        assertTrue(index.mightHaveEmail("alice@mail.com"));
+        assertTrue(index.mightHaveEmail("ALICE@MAIL.COM"));
+    }
+
+    @Test
+    void registeredNamesAreFoundWhateverTheirCase() {
+        index.run(null);
+
+        index.add("BOB", "bob@mail.com");
+
+        assertTrue(index.mightHaveUsername("Bob"));
+        assertTrue(index.mightHaveEmail("Bob@Mail.Com"));
+    }
+
+    @Test
+    void usernamesAndEmailsAreIndexedSeparately() {
+        index.run(null);
+
+        assertFalse(index.mightHaveEmail("Alice"));
+        assertFalse(index.mightHaveUsername("Alice@Mail.com"));
+    }
+
+    private static UserIdentity identity(String username, String email) {
+        return new UserIdentity() {
+            @Override
+            public String getUsername() {
+                return username;
+            }
+
+            @Override
+            public String getEmail() {
+                return email;
+            }
+        };
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.tuto.service.impl;
+
+import com.example.tuto.dto.RegisterDto;
+import com.example.tuto.entity.Role;
+import com.example.tuto.entity.User;
+import com.example.tuto.exception.BlogAPIException;
+import com.example.tuto.repository.RoleRepository;
+import com.example.tuto.repository.UserRepository;
+import com.example.tuto.service.AuthService;
+import com.example.tuto.service.RegisteredUsersIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class AuthServiceImplTest {
+
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private RegisteredUsersIndex registeredUsersIndex;
+
+    // Names of each test are unique, registered users are not deleted
+    private String name;
+
+    @BeforeEach
+    void setUp() {
+        if (roleRepository.findByName("ROLE_USER").isEmpty()) {
+            Role role = new Role();
+            role.setName("ROLE_USER");
+            roleRepository.save(role);
+        }
+        name = "user" + UUID.randomUUID().toString().replace("-", "");
+    }
+
+    @Test
+    void registerStoresANewUser() {
+        assertEquals("User registered successfully.", authService.register(newRegisterDto(name, name + "@mail.com")));
+
+        assertTrue(userRepository.existsByUsername(name));
+        assertTrue(registeredUsersIndex.mightHaveUsername(name));
+    }
+
+    @Test
+    void usernameRegisteredConcurrentlyIsBadRequest() {
+        // Inserted by another registration after the index was checked: only the unique constraint sees it
+        insertUnindexedUser(name, name + "@mail.com");
+        assertFalse(registeredUsersIndex.mightHaveUsername(name));
+
+        BlogAPIException exception = assertThrows(BlogAPIException.class,
+                () -> authService.register(newRegisterDto(name, "other" + name + "@mail.com")));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        assertEquals("Username is already exists.", exception.getMessage());
+        assertTrue(registeredUsersIndex.mightHaveUsername(name));
+    }
+
+    @Test
+    void emailRegisteredConcurrentlyIsBadRequest() {
+        insertUnindexedUser(name, name + "@mail.com");
+        assertFalse(registeredUsersIndex.mightHaveEmail(name + "@mail.com"));
+
+        BlogAPIException exception = assertThrows(BlogAPIException.class,
+                () -> authService.register(newRegisterDto("other" + name, name + "@mail.com")));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        assertEquals("Email is already exists.", exception.getMessage());
+    }
+
+    private void insertUnindexedUser(String username, String email) {
+        User user = new User();
+        user.setName(username);
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setPassword("hash of " + username);
+        userRepository.save(user);
+    }
+
+    private static RegisterDto newRegisterDto(String username, String email) {
+        return new RegisterDto("Name of " + username, username, email, "password");
+    }
+}
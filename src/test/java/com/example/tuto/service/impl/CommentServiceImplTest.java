@@ -0,0 +1,166 @@
+package com.example.tuto.service.impl;
+
+import com.example.tuto.dto.CommentDto;
+import com.example.tuto.entity.Comment;
+import com.example.tuto.entity.Post;
+import com.example.tuto.exception.BlogAPIException;
+import com.example.tuto.exception.ResourceNotFoundException;
+import com.example.tuto.repository.CommentRepository;
+import com.example.tuto.repository.PostRepository;
+import com.example.tuto.service.CommentService;
+import com.example.tuto.utils.PageCursor;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class CommentServiceImplTest {
+
+    @Autowired
+    private CommentService commentService;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Post post;
+    private Post otherPost;
+    private Comment comment;
+
+    @BeforeEach
+    void setUp() {
+        commentRepository.deleteAllInBatch();
+        postRepository.deleteAllInBatch();
+        // Cached comments would hide the queries
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+        post = postRepository.save(newPost("First post"));
+        otherPost = postRepository.save(newPost("Second post"));
+        comment = commentRepository.save(newComment(post));
+        postRepository.adjustCommentCount(post.getId(), 1);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void getCommentByIdRunsOneQuery() {
+        CommentDto found = commentService.getCommentById(post.getId(), comment.getId());
+
+        assertEquals(comment.getBody(), found.getBody());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void updateCommentRunsOneStatement() {
+        CommentDto changes = new CommentDto();
+        changes.setName("Updated name");
+        changes.setEmail("updated@mail.com");
+        changes.setBody("Updated comment body");
+
+        CommentDto updated = commentService.updateComment(post.getId(), comment.getId(), changes);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(comment.getId(), updated.getId());
+        assertEquals("Updated comment body", commentRepository.findById(comment.getId()).orElseThrow().getBody());
+    }
+
+    @Test
+    void deleteCommentRunsTwoStatements() {
+        commentService.deleteComment(post.getId(), comment.getId());
+
+        // Delete, then decrement the post comment count
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertFalse(commentRepository.existsById(comment.getId()));
+        assertEquals(0, postRepository.findById(post.getId()).orElseThrow().getCommentCount());
+    }
+
+    @Test
+    void commentOfAnotherPostIsRejected() {
+        assertThrows(BlogAPIException.class,
+                () -> commentService.getCommentById(otherPost.getId(), comment.getId()));
+        assertThrows(BlogAPIException.class,
+                () -> commentService.deleteComment(otherPost.getId(), comment.getId()));
+        assertEquals(1, commentRepository.count());
+    }
+
+    @Test
+    void missingCommentIsNotFound() {
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class,
+                () -> commentService.updateComment(post.getId(), comment.getId() + 1000, newCommentDto()));
+
+        assertEquals(comment.getId() + 1000, exception.getFieldValue());
+    }
+
+    @Test
+    void missingPostIsNotFound() {
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class,
+                () -> commentService.deleteComment(otherPost.getId() + 1000, comment.getId()));
+
+        assertEquals("Post", exception.getResourceName());
+    }
+
+    @Test
+    void cursorWithMalformedValueIsBadRequest() {
+        String cursor = new PageCursor("dateCreated", Sort.Direction.ASC, comment.getId(), "yesterday").encode();
+
+        BlogAPIException exception = assertThrows(BlogAPIException.class,
+                () -> commentService.getCommentsByPostIdAfter(post.getId(), cursor, 10, "id", "asc"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    }
+
+    @Test
+    void sortByIdIsNotRepeatedAsTieBreaker() {
+        commentService.getCommentsByPostId(post.getId(), 0, 10, "id", "asc");
+
+        String pageQuery = Arrays.stream(statistics.getQueries())
+                .filter(query -> query.contains("order by"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(pageQuery.indexOf(".id asc"), pageQuery.lastIndexOf(".id asc"), pageQuery);
+    }
+
+    private static Post newPost(String title) {
+        Post post = new Post();
+        post.setTitle(title);
+        post.setDescription("Post description");
+        post.setContent("Post content");
+        return post;
+    }
+
+    private static Comment newComment(Post post) {
+        Comment comment = new Comment();
+        comment.setName("Name");
+        comment.setEmail("name@mail.com");
+        comment.setBody("Comment body");
+        comment.setPost(post);
+        return comment;
+    }
+
+    private static CommentDto newCommentDto() {
+        CommentDto commentDto = new CommentDto();
+        commentDto.setName("Name");
+        commentDto.setEmail("name@mail.com");
+        commentDto.setBody("Comment body");
+        return commentDto;
+    }
+}
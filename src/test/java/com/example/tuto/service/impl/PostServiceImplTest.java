@@ -0,0 +1,186 @@
+package com.example.tuto.service.impl;
+
+import com.example.tuto.dto.CommentDto;
+import com.example.tuto.dto.PostDto;
+import com.example.tuto.dto.PostImportError;
+import com.example.tuto.dto.PostImportReport;
+import com.example.tuto.entity.Comment;
+import com.example.tuto.entity.Post;
+import com.example.tuto.exception.BlogAPIException;
+import com.example.tuto.repository.CommentRepository;
+import com.example.tuto.repository.PostRepository;
+import com.example.tuto.service.PostService;
+import com.example.tuto.utils.AppConstants;
+import com.example.tuto.utils.PageCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class PostServiceImplTest {
+
+    @Autowired
+    private PostService postService;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Post post;
+
+    @BeforeEach
+    void setUp() {
+        commentRepository.deleteAllInBatch();
+        postRepository.deleteAllInBatch();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+        post = postRepository.save(newPost("First post"));
+    }
+
+    @Test
+    void getPostsAfterRejectsCursorWithMalformedValue() {
+        String numberCursor = new PageCursor("commentCount", Sort.Direction.ASC, post.getId(), "many").encode();
+        String dateCursor = new PageCursor("dateCreated", Sort.Direction.DESC, post.getId(), "yesterday").encode();
+
+        BlogAPIException numberError = assertThrows(BlogAPIException.class,
+                () -> postService.getPostsAfter(numberCursor, 10, "id", "asc"));
+        BlogAPIException dateError = assertThrows(BlogAPIException.class,
+                () -> postService.getPostsAfter(dateCursor, 10, "id", "asc"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, numberError.getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST, dateError.getStatus());
+    }
+
+    @Test
+    void getPostsAfterRejectsPageSizeBelowOne() {
+        for (int pageSize : new int[]{0, -1}) {
+            BlogAPIException exception = assertThrows(BlogAPIException.class,
+                    () -> postService.getPostsAfter(null, pageSize, "id", "asc"));
+
+            assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        }
+    }
+
+    @Test
+    void importPostsRejectsBatchSizeOutOfRange() {
+        for (int batchSize : new int[]{-1, 0, AppConstants.MAX_IMPORT_BATCH_SIZE + 1}) {
+            BlogAPIException exception = assertThrows(BlogAPIException.class,
+                    () -> postService.importPosts(List.of(newPostDto("Imported post")).iterator(), batchSize));
+
+            assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        }
+        assertEquals(1, postRepository.count());
+    }
+
+    @Test
+    void importPostsReportsInvalidPostsInsteadOfInsertingThem() {
+        PostDto untitled = newPostDto("");
+        PostDto badComment = newPostDto("Post with a bad comment");
+        CommentDto comment = new CommentDto();
+        comment.setName("Reader");
+        comment.setEmail("not an email");
+        comment.setBody("Body of the comment");
+        badComment.setComments(Set.of(comment));
+
+        PostImportReport report = postService.importPosts(
+                List.of(newPostDto("Imported post"), untitled, badComment, newPostDto("Last imported post")).iterator(), 2);
+
+        assertEquals(2, report.getPosts());
+        assertEquals(2, report.getRejected());
+        assertEquals(List.of(2L, 3L), report.getErrors().stream().map(PostImportError::getLine).toList());
+        assertTrue(report.getErrors().get(0).getErrors().containsKey("title"));
+        assertTrue(report.getErrors().get(1).getErrors().containsKey("comments.email"));
+        assertEquals(3, postRepository.count());
+        assertEquals(0, commentRepository.count());
+    }
+
+    @Test
+    void updatingPostKeepsConcurrentCommentCountChanges() {
+        TransactionTemplate newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        newTransaction.executeWithoutResult(status -> {
+            Post loaded = postRepository.findById(post.getId()).orElseThrow();
+            // A comment is added while the post is being edited
+            newTransaction.executeWithoutResult(inner -> postRepository.adjustCommentCount(post.getId(), 1));
+            loaded.setTitle("Edited title");
+        });
+
+        Post updated = postRepository.findById(post.getId()).orElseThrow();
+        assertEquals("Edited title", updated.getTitle());
+        assertEquals(1, updated.getCommentCount());
+    }
+
+    @Test
+    void purgeDeletesPostsWithMoreCommentsThanAChunk() {
+        List<Comment> comments = new ArrayList<>();
+        for (int i = 0; i < AppConstants.DELETE_CHUNK_SIZE + 200; i++) {
+            Comment comment = new Comment();
+            comment.setName("Reader " + i);
+            comment.setEmail("reader" + i + "@mail.com");
+            comment.setBody("Comment number " + i);
+            comment.setPost(post);
+            comments.add(comment);
+        }
+        commentRepository.saveAll(comments);
+        postRepository.adjustCommentCount(post.getId(), comments.size());
+
+        long deleted = postService.deletePostsCreatedBefore(LocalDateTime.now().plusDays(1));
+
+        assertEquals(1, deleted);
+        assertEquals(0, postRepository.count());
+        assertEquals(0, commentRepository.count());
+    }
+
+    @Test
+    void deletePostByIdDeletesItsComments() {
+        Post other = postRepository.save(newPost("Other post"));
+        Comment comment = new Comment();
+        comment.setName("Reader");
+        comment.setEmail("reader@mail.com");
+        comment.setBody("Comment of the deleted post");
+        comment.setPost(post);
+        commentRepository.save(comment);
+
+        postService.deletePostById(post.getId());
+
+        assertEquals(List.of(other.getId()), postRepository.findAll().stream().map(Post::getId).toList());
+        assertEquals(0, commentRepository.count());
+    }
+
+    private static PostDto newPostDto(String title) {
+        PostDto postDto = new PostDto();
+        postDto.setTitle(title);
+        postDto.setDescription("Description of the imported post");
+        postDto.setContent("Content of the imported post");
+        return postDto;
+    }
+
+    private static Post newPost(String title) {
+        Post post = new Post();
+        post.setTitle(title);
+        post.setDescription("Description of " + title);
+        post.setContent("Content of " + title);
+        return post;
+    }
+}
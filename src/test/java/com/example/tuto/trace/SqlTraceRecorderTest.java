@@ -0,0 +1,56 @@
+package com.example.tuto.trace;
+
+import com.example.tuto.dto.SlowRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SqlTraceRecorderTest {
+
+    @Test
+    void releasedRecorderIsReusedByTheNextRequestOfAnotherThread() throws InterruptedException {
+        SqlTraceRecorder.start(10);
+        SqlTraceRecorder recorder = SqlTraceRecorder.active();
+        recorder.record("select 1", 0, 1_000, 1);
+        recorder.stop();
+        recorder.release();
+        assertNull(SqlTraceRecorder.active());
+
+        // A virtual thread per request, as with app.threads.virtual.enabled
+        AtomicReference<SqlTraceRecorder> next = new AtomicReference<>();
+        AtomicReference<SlowRequest> nextRequest = new AtomicReference<>();
+        Thread.ofVirtual().start(() -> {
+            SqlTraceRecorder.start(10);
+            next.set(SqlTraceRecorder.active());
+            nextRequest.set(next.get().toSlowRequest("GET /api/posts", "/api/posts", 200, next.get().stop()));
+            next.get().release();
+        }).join();
+
+        assertSame(recorder, next.get());
+        assertEquals(0, nextRequest.get().getStatements().size());
+    }
+
+    @Test
+    void resultSetOfAPreviousRequestIsIgnored() {
+        SqlTraceRecorder.start(10);
+        SqlTraceRecorder recorder = SqlTraceRecorder.active();
+        int index = recorder.record("select * from posts", 0, 1_000, 0);
+        long previousGeneration = recorder.generation();
+        recorder.stop();
+        recorder.release();
+
+        SqlTraceRecorder.start(10);
+        SqlTraceRecorder reused = SqlTraceRecorder.active();
+        int reusedIndex = reused.record("select * from comments", 0, 1_000, 0);
+        reused.rowRead(index, previousGeneration);
+        SlowRequest slowRequest = reused.toSlowRequest("GET /api/posts", "/api/posts", 200, reused.stop());
+        reused.release();
+
+        assertEquals(index, reusedIndex);
+        assertEquals(0, slowRequest.getStatements().get(0).getRows());
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.tuto.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    private static final int ELEMENTS = 10_000;
+
+    @Test
+    void addedElementsAreAlwaysFound() {
+        BloomFilter filter = new BloomFilter(ELEMENTS, 0.01);
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < ELEMENTS; i++) {
+            names.add("u:user" + i);
+            names.add("e:" + UUID.randomUUID() + "@mail.com");
+        }
+
+        names.forEach(filter::put);
+
+        for (String name : names) {
+            assertTrue(filter.mightContain(name), name);
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheSizedProbability() {
+        BloomFilter filter = new BloomFilter(ELEMENTS, 0.01);
+        for (int i = 0; i < ELEMENTS; i++) {
+            filter.put("u:user" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < ELEMENTS; i++) {
+            if (filter.mightContain("u:stranger" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < ELEMENTS * 0.02, falsePositives + " false positives");
+    }
+}